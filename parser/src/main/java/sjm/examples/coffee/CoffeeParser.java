@@ -149,12 +149,13 @@ public class CoffeeParser {
 	}
 	
 	/**
-	 * Return the primary parser for this class -- coffee().
+	 * Return the primary parser for this class -- coffee(), 
+	 * optimized.
 	 *
 	 * @return the primary parser for this class -- coffee()
 	 */
 	public static Parser start() {
-		return new CoffeeParser().coffee();
+		return ParserOptimizer.optimize(new CoffeeParser().coffee());
 	}
 	
 	/**
@@ -0,0 +1,229 @@
+/*
+ * @(#)ActionTrail.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+public final class ActionTrail {
+	
+	/**
+	 * the trail with nothing on it
+	 */
+	public static final ActionTrail EMPTY = 
+		new ActionTrail(null, false, 0, null);
+	
+	/*
+	 * the most recent action: an object to push, or an assembler
+	 */
+	private final Object action;
+	
+	/*
+	 * whether the action is an assembler to run
+	 */
+	private final boolean assembler;
+	
+	/*
+	 * the assembly's position when the action was recorded
+	 */
+	private final int index;
+	
+	/*
+	 * the actions before this one, which this trail shares with 
+	 * every trail that grew from it
+	 */
+	private final ActionTrail previous;
+	
+	/*
+	 * the number of actions on this trail
+	 */
+	private final int size;
+	
+	/*
+	 * Trails are made only by adding to EMPTY.
+	 */
+	private ActionTrail(
+		Object action, boolean assembler, int index, ActionTrail previous) {
+		
+		this.action = action;
+		this.assembler = assembler;
+		this.index = index;
+		this.previous = previous;
+		this.size = previous == null ? 0 : previous.size + 1;
+	}
+	
+	/**
+	 * Returns a trail that adds running the given assembler, at 
+	 * the given position, to this one.
+	 * 
+	 * @param   Assembler   the assembler to run later
+	 * 
+	 * @param   int   the assembly's position now
+	 * 
+	 * @return   a longer trail
+	 */
+	public ActionTrail assemble(Assembler a, int index) {
+		return new ActionTrail(a, true, index, this);
+	}
+	
+	/**
+	 * Returns true if the supplied object is a trail with equal 
+	 * actions at the same positions. Elements to push must be 
+	 * equal; assemblers must be the same object.
+	 * 
+	 * @param   object   the object to compare
+	 * 
+	 * @return   true, if the supplied object is an equal trail
+	 */
+	public boolean equals(Object o) {
+		if (!(o instanceof ActionTrail)) {
+			return false;
+		}
+		ActionTrail t1 = this;
+		ActionTrail t2 = (ActionTrail) o;
+		if (t1.size != t2.size) {
+			return false;
+		}
+		while (t1 != t2) {
+			if (t1.assembler != t2.assembler || t1.index != t2.index) {
+				return false;
+			}
+			if (t1.assembler ? t1.action != t2.action 
+				: !equal(t1.action, t2.action)) {
+				
+				return false;
+			}
+			t1 = t1.previous;
+			t2 = t2.previous;
+		}
+		return true;
+	}
+	
+	/*
+	 * Compares two objects for equality, treating nulls carefully.
+	 */
+	private static boolean equal(Object o1, Object o2) {
+		if (o1 == null || o2 == null) {
+			return o1 == o2;
+		}
+		return o1.equals(o2);
+	}
+	
+	/**
+	 * Returns a hash code that agrees with <code>equals()</code>.
+	 * 
+	 * @return   a hash code for this trail
+	 */
+	public int hashCode() {
+		int h = size;
+		for (ActionTrail t = this; t.size > 0; t = t.previous) {
+			int a = t.action == null ? 0 : t.assembler 
+				? System.identityHashCode(t.action) : t.action.hashCode();
+			h = 31 * (31 * h + t.index) + a;
+		}
+		return h;
+	}
+	
+	/**
+	 * Returns a trail that adds pushing the given object, at the 
+	 * given position, to this one.
+	 * 
+	 * @param   object   the object to push later
+	 * 
+	 * @param   int   the assembly's position now
+	 * 
+	 * @return   a longer trail
+	 */
+	public ActionTrail push(Object o, int index) {
+		return new ActionTrail(o, false, index, this);
+	}
+	
+	/**
+	 * Returns this trail with the given trail at its start 
+	 * replaced by another. This trail must have grown from the 
+	 * trail being replaced; if it did not, this method returns 
+	 * this trail.
+	 * 
+	 * @param   ActionTrail   a trail this one grew from
+	 * 
+	 * @param   ActionTrail   the trail to put in its place
+	 * 
+	 * @return   the actions this trail added, on top of the new 
+	 *           start
+	 */
+	public ActionTrail rebase(ActionTrail from, ActionTrail onto) {
+		if (from == onto) {
+			return this;
+		}
+		int n = size - from.size;
+		if (n < 0) {
+			return this;
+		}
+		ActionTrail[] added = new ActionTrail[n];
+		ActionTrail t = this;
+		for (int i = n - 1; i >= 0; i--) {
+			added[i] = t;
+			t = t.previous;
+		}
+		if (t != from) {
+			return this;
+		}
+		ActionTrail result = onto;
+		for (int i = 0; i < n; i++) {
+			result = new ActionTrail(
+				added[i].action, added[i].assembler, added[i].index, result);
+		}
+		return result;
+	}
+	
+	/**
+	 * Carries out this trail's actions on the given assembly, 
+	 * oldest first. Each action sees the assembly at the position 
+	 * it was recorded at; the assembly's position afterwards is 
+	 * whatever the last action left it at.
+	 * 
+	 * @param   Assembly   an assembly that is not recording
+	 */
+	public void replay(Assembly a) {
+		ActionTrail[] actions = new ActionTrail[size];
+		ActionTrail t = this;
+		for (int i = size - 1; i >= 0; i--) {
+			actions[i] = t;
+			t = t.previous;
+		}
+		for (int i = 0; i < size; i++) {
+			ActionTrail action = actions[i];
+			a.index = action.index;
+			if (action.assembler) {
+				((Assembler) action.action).workOn(a);
+			} else {
+				a.push(action.action);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of actions on this trail.
+	 * 
+	 * @return   the number of actions on this trail
+	 */
+	public int size() {
+		return size;
+	}
+}
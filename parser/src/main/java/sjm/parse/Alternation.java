@@ -25,6 +25,18 @@ import java.util.*;
 
 public class Alternation extends CollectionParser {
 
+	/**
+	 * whether this alternation uses the next element of an 
+	 * assembly to skip subparsers that cannot match it
+	 */
+	protected boolean lookahead = false;
+
+	/**
+	 * the table of which subparsers can start with which elements, 
+	 * built the first time this alternation needs it
+	 */
+	protected volatile LookaheadTable lookaheadTable;
+
 	/**
 	 * Constructs a nameless alternation.
 	 */
@@ -82,24 +94,99 @@ public class Alternation extends CollectionParser {
 		pv.visitAlternation(this, visited);
 	}
 
+	/**
+	 * Adds a parser to the collection.
+	 * 
+	 * @param Parser
+	 *            the parser to add
+	 * 
+	 * @return this
+	 */
+	public CollectionParser add(Parser e) {
+		lookaheadTable = null;
+		return super.add(e);
+	}
+
+	/**
+	 * Returns the positions, in increasing order, of the subparsers 
+	 * that might match the given assembly, or null if every 
+	 * subparser must be tried.
+	 * 
+	 * @param Assembly
+	 *            the assembly to match against
+	 * 
+	 * @return the positions of the subparsers worth trying, or null
+	 */
+	protected int[] candidates(Assembly a) {
+		if (!lookahead) {
+			return null;
+		}
+		LookaheadTable t = lookaheadTable;
+		if (t == null) {
+			t = new LookaheadTable(this);
+			lookaheadTable = t;
+		}
+		return t.candidates(a.peekLookaheadKeys());
+	}
+
 	/**
 	 * Given a set of assemblies, this method matches this alternation against
 	 * all of them, and returns a new set of the assemblies that result from the
 	 * matches.
 	 * 
-	 * @return a Vector of assemblies that result from matching against a
+	 * @return a set of assemblies that result from matching against a
 	 *         beginning set of assemblies
 	 * 
-	 * @param Vector
-	 *            a vector of assemblies to match against
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
 	 * 
 	 */
-	public Vector match(Vector in) {
-		Vector out = new Vector();
-		Enumeration e = subparsers.elements();
-		while (e.hasMoreElements()) {
-			Parser p = (Parser) e.nextElement();
-			add(out, p.matchAndAssemble(in));
+	public AssemblySet match(AssemblySet in) {
+		if (lookahead) {
+			return matchCandidates(in);
+		}
+		AssemblySet out = new AssemblySet();
+		int n = subparsers.size();
+		for (int i = 0; i < n; i++) {
+			Parser p = (Parser) subparsers.elementAt(i);
+			out.addAll(p.matchAndAssemble(in));
+		}
+		return out;
+	}
+
+	/*
+	 * Match each subparser against just the assemblies whose next 
+	 * element it might match.
+	 */
+	protected AssemblySet matchCandidates(AssemblySet in) {
+		AssemblySet out = new AssemblySet();
+		int m = in.size();
+		if (m == 1) {
+			int[] c = candidates(in.get(0));
+			if (c != null) {
+				for (int j = 0; j < c.length; j++) {
+					Parser p = (Parser) subparsers.elementAt(c[j]);
+					out.addAll(p.matchAndAssemble(in));
+				}
+				return out;
+			}
+		}
+		int[][] c = new int[m][];
+		for (int i = 0; i < m; i++) {
+			c[i] = candidates(in.get(i));
+		}
+		int n = subparsers.size();
+		for (int j = 0; j < n; j++) {
+			AssemblySet some = new AssemblySet(m);
+			for (int i = 0; i < m; i++) {
+				if (c[i] == null || Arrays.binarySearch(c[i], j) >= 0) {
+					some.add(in.get(i));
+				}
+			}
+			if (!some.isEmpty()) {
+				Parser p = (Parser) subparsers.elementAt(j);
+				out.addAll(p.matchAndAssemble(some));
+			}
 		}
 		return out;
 	}
@@ -149,6 +236,29 @@ public class Alternation extends CollectionParser {
 		return p.randomExpansion(maxDepth, depth++);
 	}
 
+	/**
+	 * Sets whether this alternation looks at the next element of 
+	 * each assembly to decide which subparsers to try. The first 
+	 * time it matches, it works out which terminals can start each 
+	 * subparser and files the subparsers in a table under those 
+	 * terminals' lookahead keys; after that, it tries only the 
+	 * subparsers filed under the next element's keys, plus those 
+	 * that can match nothing or start with anything. Build the 
+	 * grammar before matching; to change a subparser of this 
+	 * alternation afterwards, set lookahead again so that the table 
+	 * is rebuilt.
+	 * 
+	 * @param boolean
+	 *            true, if this alternation should use lookahead
+	 * 
+	 * @return Parser this
+	 */
+	public Parser setLookahead(boolean lookahead) {
+		this.lookahead = lookahead;
+		lookaheadTable = null;
+		return this;
+	}
+
 	/*
 	 * Returns the string to show between the parsers this parser is an
 	 * alternation of.
@@ -30,7 +30,7 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	/**
 	 * a place to keep track of consumption progress
 	 */
-	protected Stack stack = new Stack();
+	protected PersistentStack stack = PersistentStack.EMPTY;
 	
 	/**
 	 * another place to record progress; this is just an object.
@@ -43,25 +43,93 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	 */
 	protected PubliclyCloneable target;
 	
+	/**
+	 * true if another assembly may hold the same target object,
+	 * in which case this assembly copies the target before 
+	 * handing it out for work
+	 */
+	protected boolean targetShared = false;
+	
 	/**
 	 * which element is next
 	 */
 	protected int index = 0;
 	
 	/**
-	 * Return a copy of this object.
+	 * a table of earlier match results, shared by every clone of
+	 * this assembly; null unless this parse is memoizing
+	 */
+	protected PackratMemo memo;
+	
+	/**
+	 * the beam that limits how many assemblies each parser passes 
+	 * on, shared by every clone of this assembly; null unless this 
+	 * parse is pruning
+	 */
+	protected Beam beam;
+	
+	/**
+	 * the pushes and assembler calls this assembly has put off 
+	 * until <code>replay()</code>; null unless this parse defers 
+	 * its assemblers
+	 */
+	protected ActionTrail trail;
+	
+	/**
+	 * a one-slot array holding the furthest position this 
+	 * assembly or any of its clones has reached, shared by every 
+	 * clone; null unless this parse tracks how far it gets
+	 */
+	protected int[] reach;
+	
+	/**
+	 * the arena that this assembly and its clones record syntax 
+	 * nodes in, or null if the parse builds no tree
+	 */
+	protected SyntaxArena arena;
+	
+	/**
+	 * the last node this assembly recorded in its arena at the 
+	 * current level, and the frame it has open, or -1 for none
+	 */
+	protected int node = -1;
+	protected int frame = -1;
+	
+	/**
+	 * Lets the given assembler work on this assembly, or, if this 
+	 * assembly defers its assemblers, records the call on its 
+	 * trail to make at <code>replay()</code>.
+	 *
+	 * @param   Assembler   the assembler to apply
+	 */
+	public void assemble(Assembler assembler) {
+		if (trail != null) {
+			trail = trail.assemble(assembler, index);
+		} else {
+			assembler.workOn(this);
+		}
+	}
+	
+	/**
+	 * Return a copy of this object. The copy shares this 
+	 * assembly's stack, which never changes in place, so copying 
+	 * costs the same however deep the stack is. The copy also 
+	 * shares this assembly's target until either of them asks 
+	 * for it with <code>getTarget()</code>, at which point that 
+	 * one takes a private copy.
 	 * 
 	 * @return a copy of this object
 	 */
 	@Override
 	public Object clone() {
 		try {
-			Assembly a = (Assembly) super.clone();
-			a.stack = (Stack) stack.clone();
 			if (target != null) {
-				a.target = (PubliclyCloneable) target.clone();
+				targetShared = true;
+			}
+			if (ParserProfiler.enabled) {
+				ParserProfiler.cloned();
 			}
-			return a;
+			return (Assembly) super.clone();
 		} catch (CloneNotSupportedException e) {
 			// this should not happen, since we are Cloneable
 			throw new InternalError();
@@ -105,12 +173,58 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	}
 	
 	/**
-	 * Removes this assembly's stack.
+	 * Returns the furthest position that this assembly, or any 
+	 * clone made of it since it started tracking reach, has 
+	 * reached. When a parser fails, this is usually just past the 
+	 * last element that fit. Results a memo replays do not move 
+	 * the mark. If this assembly does not track reach, this 
+	 * returns its own position.
+	 *
+	 * @return the furthest position reached
+	 */
+	public int furthestReached() {
+		return reach == null ? index : Math.max(reach[0], index);
+	}
+	
+	/**
+	 * Returns the arena this assembly and its clones record syntax 
+	 * nodes in, or null if the parse builds no tree.
+	 *
+	 * @return   the arena this assembly shares with its clones
+	 */
+	public SyntaxArena getArena() {
+		return arena;
+	}
+	
+	/**
+	 * Returns the beam this assembly and its clones share, or null 
+	 * if this parse is not pruning.
+	 *
+	 * @return   the beam this assembly shares with its clones
+	 */
+	public Beam getBeam() {
+		return beam;
+	}
+	
+	/**
+	 * Returns the memo this assembly and its clones share, or null 
+	 * if this parse is not memoizing.
+	 *
+	 * @return   the memo this assembly shares with its clones
+	 */
+	public PackratMemo getMemo() {
+		return memo;
+	}
+	
+	/**
+	 * Returns a copy of this assembly's stack. Changing the copy 
+	 * does not change this assembly; use <code>push()</code> and 
+	 * <code>pop()</code> for that.
 	 *
-	 * @return   this assembly's stack
+	 * @return   a copy of this assembly's stack
 	 */
 	public Stack getStack() {
-		return stack;
+		return stack.toStack();
 	}	
 	
 	/**
@@ -122,10 +236,20 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	 * the parser recognizes markup commands like <head>, it
 	 * could apply its findings to the target.
 	 * 
+	 * <p>
+	 * Since the caller may change the target, an assembly whose 
+	 * target is shared with a clone first replaces it with a 
+	 * private copy. Use <code>peekTarget()</code> to look at the 
+	 * target without copying it.
+	 * 
 	 * @return the target of this assembly
 	 * 
 	 */
 	public Object getTarget() {
+		if (targetShared) {
+			target = (PubliclyCloneable) target.clone();
+			targetShared = false;
+		}
 		return this.target;
 	}
 	
@@ -139,6 +263,26 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 		return elementsConsumed() < length();
 	}
 	
+	/**
+	 * Returns true if at least the given number of elements 
+	 * remain. An assembly that tracks reach records the last of 
+	 * those elements, or the end if it comes first, as reached, 
+	 * since the answer depends on them.
+	 *
+	 * @param   int   the number of elements wanted
+	 *
+	 * @return   true, if at least that many elements remain
+	 */
+	public boolean hasRemaining(int n) {
+		if (reach != null && n > 0) {
+			int last = Math.min(index + n - 1, length());
+			if (last > reach[0]) {
+				reach[0] = last;
+			}
+		}
+		return elementsRemaining() >= n;
+	}
+	
 	/**
 	 * Returns the number of elements in this assembly.
 	 *
@@ -154,6 +298,41 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	 */
 	public abstract Object peek();
 	
+	/**
+	 * Returns the keys under which a lookahead table files the 
+	 * terminals that might match this assembly's next element. 
+	 * Returns an empty array if there are no more elements, and 
+	 * null if this kind of assembly does not know its elements' 
+	 * keys, in which case a lookahead table cannot rule out any 
+	 * terminal.
+	 *
+	 * @return   the lookahead keys of the next element, or null
+	 */
+	public Object[] peekLookaheadKeys() {
+		return null;
+	}
+	
+	/**
+	 * Returns the trail of actions this assembly has put off, or 
+	 * null if it does not defer its assemblers.
+	 *
+	 * @return   the trail of actions this assembly has put off
+	 */
+	public ActionTrail getTrail() {
+		return trail;
+	}
+	
+	/**
+	 * Returns this assembly's target without taking a private copy 
+	 * of it. The target may be shared with other assemblies, so 
+	 * callers must not change it.
+	 *
+	 * @return   the target of this assembly, for reading only
+	 */
+	public Object peekTarget() {
+		return target;
+	}
+	
 	/**
 	 * Removes the object at the top of this assembly's stack and
 	 * returns it.
@@ -163,7 +342,9 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	 * @exception   EmptyStackException   if this stack is empty
 	 */
 	public Object pop() {
-		return stack.pop();
+		Object o = stack.peek();
+		stack = stack.pop();
+		return o;
 	}
 	
 	/**
@@ -172,7 +353,11 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	 * @param   object   the object to be pushed
 	 */
 	public void push(Object o) {
-		stack.push(o);
+		if (trail != null) {
+			trail = trail.push(o, index);
+		} else {
+			stack = stack.push(o);
+		}
 	}
 	
 	/**
@@ -186,6 +371,146 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	 *           consumed
 	 */
 	public abstract String remainder(String delimiter);
+	
+	/**
+	 * Carries out the pushes and assembler calls this assembly 
+	 * put off, in the order they were recorded, and stops 
+	 * deferring. Each assembler sees the assembly at the position 
+	 * it would have seen when matching; afterwards the position 
+	 * is restored.
+	 */
+	public void replay() {
+		if (trail == null) {
+			return;
+		}
+		ActionTrail t = trail;
+		int saved = index;
+		trail = null;
+		t.replay(this);
+		index = saved;
+	}
+	
+	/**
+	 * Returns true if the supplied assembly is at the same place 
+	 * as this one, with an equal stack and an equal target, 
+	 * leaving aside any actions either has put off. Parsers match 
+	 * such assemblies the same way.
+	 *
+	 * @param   Assembly   the assembly to compare
+	 *
+	 * @return   true, if the supplied assembly has the same 
+	 *           position, stack and target as this one
+	 */
+	public boolean sameMatchState(Assembly a) {
+		if (index != a.index || !stack.equals(a.stack)) {
+			return false;
+		}
+		if (target == null || a.target == null) {
+			return target == a.target;
+		}
+		return target.equals(a.target);
+	}
+	
+	/**
+	 * Returns true if the supplied assembly is at the same place 
+	 * as this one, with an equal stack, an equal target and an 
+	 * equal trail of deferred actions. Parsers and assemblers will 
+	 * do the same work on two such assemblies.
+	 *
+	 * @param   Assembly   the assembly to compare
+	 *
+	 * @return   true, if the supplied assembly has the same 
+	 *           position, stack, target and trail as this one
+	 */
+	public boolean sameState(Assembly a) {
+		if (!sameMatchState(a)) {
+			return false;
+		}
+		if (trail == null || a.trail == null) {
+			return trail == a.trail;
+		}
+		return trail.equals(a.trail);
+	}
+	
+	/**
+	 * Sets the arena that this assembly and all of its subsequent 
+	 * clones record syntax nodes in. Each named parser that 
+	 * matches records a node spanning what it matched, and each 
+	 * terminal a leaf for the element it consumed; 
+	 * <code>SyntaxArena.tree()</code> builds the tree an assembly 
+	 * recorded. Nodes are a few ints in the arena, shared by every 
+	 * branch that has them, so assemblies the parse throws away 
+	 * leave no objects behind.
+	 *
+	 * @param   SyntaxArena   the arena to share, or null to stop 
+	 *                        recording
+	 */
+	public void setArena(SyntaxArena arena) {
+		this.arena = arena;
+		node = -1;
+		frame = -1;
+	}
+	
+	/**
+	 * Sets the beam that this assembly and all of its subsequent 
+	 * clones will be pruned by.
+	 *
+	 * @param   Beam   the beam to share, or null to stop pruning
+	 */
+	public void setBeam(Beam beam) {
+		this.beam = beam;
+	}
+	
+	/**
+	 * Sets whether this assembly and its subsequent clones put off 
+	 * the work of assemblers. A deferring assembly records the 
+	 * objects terminals push and the assemblers parsers apply, 
+	 * instead of changing its stack and target, until 
+	 * <code>replay()</code>. This saves the work of assemblers on 
+	 * assemblies that a parse will throw away; 
+	 * <code>Parser.bestMatch()</code> replays only the assembly it 
+	 * returns.
+	 * <p>
+	 * Matching must not depend on an assembly's stack or target 
+	 * while it defers, since they do not change.
+	 *
+	 * @param   boolean   true, if this assembly should defer its 
+	 *                    assemblers
+	 */
+	public void setDeferred(boolean deferred) {
+		if (!deferred) {
+			replay();
+		} else if (trail == null) {
+			trail = ActionTrail.EMPTY;
+		}
+	}
+	
+	/**
+	 * Sets the memo this assembly and all of its subsequent clones 
+	 * will consult before a parser matches against them. Parsers 
+	 * then match at most once per position and input state, and 
+	 * replay their earlier results after that. A memo also lets 
+	 * left recursive grammars, such as <code>expr = expr '+' term 
+	 * | term</code>, match without recursing forever.
+	 *
+	 * @param   PackratMemo   the memo to share, or null to stop 
+	 *                        memoizing
+	 */
+	public void setMemo(PackratMemo memo) {
+		this.memo = memo;
+	}
+	
+	/**
+	 * Sets whether this assembly and the clones made of it from 
+	 * now on record the furthest position any of them reaches. 
+	 * Each call with true starts a new record.
+	 *
+	 * @param   boolean   true, if this assembly should track reach
+	 */
+	public void setReachTracking(boolean tracking) {
+		reach = tracking ? new int[] {index} : null;
+	}
+	
 	/**
 	 * Sets the target for this assembly. Targets must implement 
 	 * <code>clone()</code> as a public method.
@@ -194,7 +519,22 @@ public abstract class Assembly implements Enumeration, PubliclyCloneable {
 	 */
 	public void setTarget(PubliclyCloneable target) {
 		this.target = target;
+		this.targetShared = false;
+	}
+	
+	/**
+	 * Returns a hash code that agrees with <code>sameState()</code>. 
+	 * It depends on the position, the stack and the trail, but 
+	 * not the target, since targets need not override 
+	 * <code>hashCode()</code>.
+	 *
+	 * @return   a hash code for this assembly's state
+	 */
+	public int stateHashCode() {
+		int h = 31 * index + stack.hashCode();
+		return trail == null ? h : 31 * h + trail.hashCode();
 	}
+	
 	/**
 	 * Returns true if this assembly's stack is empty.
 	 *
@@ -0,0 +1,35 @@
+/*
+ * @(#)AssemblyFactory.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+public abstract class AssemblyFactory {
+	
+	/**
+	 * Returns a new assembly of the given text, ready to match. 
+	 * A batch parse calls this from several threads at once.
+	 * 
+	 * @param String the text to make an assembly of
+	 * 
+	 * @return an assembly of the given text
+	 */
+	public abstract Assembly assembly(String s);
+}
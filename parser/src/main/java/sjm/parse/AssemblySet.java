@@ -0,0 +1,266 @@
+/*
+ * @(#)AssemblySet.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class AssemblySet {
+	
+	/*
+	 * the number of assemblies a new set has room for; most
+	 * sets passed between parsers hold only one or two
+	 */
+	protected static final int INLINE_CAPACITY = 4;
+	
+	/**
+	 * the assemblies in this set, in the order they were added
+	 */
+	protected Assembly[] assemblies;
+	
+	/**
+	 * how many slots of the array are in use
+	 */
+	protected int size = 0;
+	
+	/*
+	 * Wraps an assembly so that a hash set can find another 
+	 * assembly in the same state.
+	 */
+	protected static class State {
+		protected Assembly assembly;
+		protected int hash;
+		
+		protected State(Assembly assembly) {
+			this.assembly = assembly;
+			this.hash = assembly.stateHashCode();
+		}
+		
+		public boolean equals(Object o) {
+			return o instanceof State 
+				&& assembly.sameState(((State) o).assembly);
+		}
+		
+		public int hashCode() {
+			return hash;
+		}
+	}
+	
+	/**
+	 * Constructs an empty set.
+	 */
+	public AssemblySet() {
+		this(INLINE_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a set holding just the given assembly.
+	 * 
+	 * @param   Assembly   the assembly to hold
+	 */
+	public AssemblySet(Assembly a) {
+		this(INLINE_CAPACITY);
+		add(a);
+	}
+	
+	/**
+	 * Constructs an empty set with room for the given number of
+	 * assemblies.
+	 * 
+	 * @param   int   the number of assemblies to make room for
+	 */
+	public AssemblySet(int capacity) {
+		assemblies = new Assembly[Math.max(capacity, 1)];
+	}
+	
+	/**
+	 * Constructs a set holding the assemblies in the given
+	 * vector, in the same order. This lets code that still
+	 * collects assemblies in a <code>Vector</code> call the
+	 * methods that take a set.
+	 * 
+	 * @param   Vector   a vector of assemblies
+	 */
+	public AssemblySet(Vector v) {
+		this(v.size());
+		int n = v.size();
+		for (int i = 0; i < n; i++) {
+			assemblies[i] = (Assembly) v.elementAt(i);
+		}
+		size = n;
+	}
+	
+	/**
+	 * Adds an assembly to this set.
+	 * 
+	 * @param   Assembly   the assembly to add
+	 */
+	public void add(Assembly a) {
+		if (size == assemblies.length) {
+			Assembly[] bigger = new Assembly[size * 2];
+			System.arraycopy(assemblies, 0, bigger, 0, size);
+			assemblies = bigger;
+		}
+		assemblies[size++] = a;
+	}
+	
+	/**
+	 * Adds every assembly in another set to this one.
+	 * 
+	 * @param   AssemblySet   the set with assemblies to add
+	 */
+	public void addAll(AssemblySet s) {
+		int n = size + s.size;
+		if (n > assemblies.length) {
+			Assembly[] bigger = new Assembly[Math.max(n, size * 2)];
+			System.arraycopy(assemblies, 0, bigger, 0, size);
+			assemblies = bigger;
+		}
+		System.arraycopy(s.assemblies, 0, assemblies, size, s.size);
+		size = n;
+	}
+	
+	/**
+	 * Returns a set holding the first of each group of assemblies 
+	 * in this set that are in the same state, as 
+	 * <code>Assembly.sameState()</code> decides. Returns this set 
+	 * if it has no duplicates.
+	 * 
+	 * @return   a set without duplicate states
+	 */
+	public AssemblySet distinct() {
+		if (size < 2) {
+			return this;
+		}
+		HashSet seen = new HashSet();
+		AssemblySet out = new AssemblySet(size);
+		for (int i = 0; i < size; i++) {
+			if (seen.add(new State(assemblies[i]))) {
+				out.assemblies[out.size++] = assemblies[i];
+			}
+		}
+		return out.size == size ? this : out;
+	}
+	
+	/**
+	 * Returns a new set holding a clone of each assembly in this
+	 * set.
+	 * 
+	 * @return   a new set holding a clone of each assembly in
+	 *           this set
+	 */
+	public AssemblySet elementClone() {
+		AssemblySet copy = new AssemblySet(size);
+		for (int i = 0; i < size; i++) {
+			copy.assemblies[i] = (Assembly) assemblies[i].clone();
+		}
+		copy.size = size;
+		return copy;
+	}
+	
+	/**
+	 * Returns the assembly at the given position.
+	 * 
+	 * @param   int   the position, counting from zero in the
+	 *                order assemblies were added
+	 * 
+	 * @return   the assembly at the given position
+	 * 
+	 * @exception   ArrayIndexOutOfBoundsException   if the
+	 *              position is not less than the size
+	 */
+	public Assembly get(int i) {
+		if (i >= size) {
+			throw new ArrayIndexOutOfBoundsException(i);
+		}
+		return assemblies[i];
+	}
+	
+	/**
+	 * Returns true if this set holds no assemblies.
+	 * 
+	 * @return   true, if this set holds no assemblies
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the number of assemblies in this set.
+	 * 
+	 * @return   the number of assemblies in this set
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns a textual description of this set.
+	 * 
+	 * @return   a textual description of this set
+	 */
+	public String toString() {
+		return toVector().toString();
+	}
+	
+	/**
+	 * Returns a set holding the assemblies in this set that have 
+	 * at least the given number of elements left, in the same 
+	 * order. Returns this set if they all do.
+	 * 
+	 * @param   int   the fewest elements an assembly must have 
+	 *                left
+	 * 
+	 * @return   a set of the assemblies with enough elements left
+	 */
+	public AssemblySet withRemaining(int n) {
+		int i = 0;
+		while (i < size && assemblies[i].hasRemaining(n)) {
+			i++;
+		}
+		if (i == size) {
+			return this;
+		}
+		AssemblySet out = new AssemblySet(size);
+		System.arraycopy(assemblies, 0, out.assemblies, 0, i);
+		out.size = i;
+		for (i++; i < size; i++) {
+			if (assemblies[i].hasRemaining(n)) {
+				out.assemblies[out.size++] = assemblies[i];
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Returns a vector of the assemblies in this set, in the same
+	 * order.
+	 * 
+	 * @return   a vector of the assemblies in this set
+	 */
+	public Vector toVector() {
+		Vector v = new Vector(size);
+		for (int i = 0; i < size; i++) {
+			v.addElement(assemblies[i]);
+		}
+		return v;
+	}
+}
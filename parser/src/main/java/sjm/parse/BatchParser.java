@@ -0,0 +1,163 @@
+/*
+ * @(#)BatchParser.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class BatchParser {
+	
+	/*
+	 * the grammar every record is matched against
+	 */
+	protected Parser parser;
+	
+	/*
+	 * makes an assembly of each record
+	 */
+	protected AssemblyFactory factory;
+	
+	/*
+	 * how many threads to parse with
+	 */
+	protected int threads;
+	
+	/**
+	 * Constructs a batch parser that uses a thread per processor.
+	 * 
+	 * @param Parser the grammar to match each record against
+	 * 
+	 * @param AssemblyFactory makes an assembly of each record
+	 */
+	public BatchParser(Parser parser, AssemblyFactory factory) {
+		this(parser, factory, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Constructs a batch parser that uses the given number of 
+	 * threads.
+	 * 
+	 * @param Parser the grammar to match each record against
+	 * 
+	 * @param AssemblyFactory makes an assembly of each record
+	 * 
+	 * @param int how many threads to parse with
+	 */
+	public BatchParser(Parser parser, AssemblyFactory factory, int threads) {
+		this.parser = parser;
+		this.factory = factory;
+		this.threads = Math.max(threads, 1);
+	}
+	
+	/**
+	 * Parses every record in the given list with a thread per 
+	 * processor.
+	 * 
+	 * @param List the records, as strings
+	 * 
+	 * @param Parser the grammar to match each record against
+	 * 
+	 * @param AssemblyFactory makes an assembly of each record
+	 * 
+	 * @return a result for each record, in the same order
+	 */
+	public static ParseResult[] parseAll(
+		List inputs, Parser parser, AssemblyFactory factory) {
+		
+		return new BatchParser(parser, factory).parse(inputs);
+	}
+	
+	/**
+	 * Parses every record in the given list, sharing the grammar 
+	 * between threads. Each thread takes the next unparsed record 
+	 * until none are left. A record whose parse throws an 
+	 * exception or an error, such as a stack overflow, gets a 
+	 * result holding what was thrown, and the other records are 
+	 * still parsed. Errors that leave the virtual machine unable 
+	 * to go on, such as running out of memory, still end the 
+	 * batch.
+	 * <p>
+	 * The grammar's assemblers and the factory must be safe to use 
+	 * from several threads at once.
+	 * 
+	 * @param List the records, as strings
+	 * 
+	 * @return a result for each record, in the same order
+	 */
+	public ParseResult[] parse(final List inputs) {
+		final ParseResult[] results = new ParseResult[inputs.size()];
+		final AtomicInteger next = new AtomicInteger();
+		Runnable worker = new Runnable() {
+			public void run() {
+				int i;
+				while ((i = next.getAndIncrement()) < results.length) {
+					results[i] = parseOne(i, (String) inputs.get(i));
+				}
+			}
+		};
+		int n = Math.min(threads, results.length);
+		if (n <= 1) {
+			worker.run();
+			return results;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(n);
+		try {
+			Future[] futures = new Future[n];
+			for (int i = 0; i < n; i++) {
+				futures[i] = pool.submit(worker);
+			}
+			for (int i = 0; i < n; i++) {
+				futures[i].get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Batch parse interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Batch parse failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return results;
+	}
+	
+	/*
+	 * Parse one record, catching whatever goes wrong with it: a 
+	 * stack overflow from a deeply nested record included, but 
+	 * not other trouble in the virtual machine.
+	 */
+	protected ParseResult parseOne(int i, String s) {
+		try {
+			Assembly a = parser.bestMatch(factory.assembly(s));
+			return new ParseResult(i, s, a, null);
+		} catch (RuntimeException e) {
+			return new ParseResult(i, s, null, e);
+		} catch (StackOverflowError e) {
+			return new ParseResult(i, s, null, e);
+		} catch (Error e) {
+			if (e instanceof VirtualMachineError) {
+				throw e;
+			}
+			return new ParseResult(i, s, null, e);
+		}
+	}
+}
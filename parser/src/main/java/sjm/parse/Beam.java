@@ -0,0 +1,182 @@
+/*
+ * @(#)Beam.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class Beam {
+	
+	/*
+	 * the most assemblies any parser may pass on
+	 */
+	protected int width;
+	
+	/*
+	 * ranks assemblies; null ranks them by elements consumed
+	 */
+	protected AssemblyScorer scorer;
+	
+	/*
+	 * how many times this beam cut a set down, and how many 
+	 * assemblies it dropped doing so
+	 */
+	protected int prunings;
+	protected int pruned;
+	
+	/**
+	 * Constructs a beam that keeps the given number of assemblies 
+	 * that have consumed the most elements.
+	 * 
+	 * @param int the most assemblies any parser may pass on
+	 */
+	public Beam(int width) {
+		this(width, null);
+	}
+	
+	/**
+	 * Constructs a beam that keeps the given number of assemblies 
+	 * the given scorer ranks highest.
+	 * 
+	 * @param int the most assemblies any parser may pass on
+	 * 
+	 * @param AssemblyScorer the scorer to rank assemblies by, or 
+	 *        null to rank them by the elements they have consumed
+	 * 
+	 * @exception IllegalArgumentException if the width is less 
+	 *            than one
+	 */
+	public Beam(int width, AssemblyScorer scorer) {
+		if (width < 1) {
+			throw new IllegalArgumentException(
+				"Beam width must be positive: " + width);
+		}
+		this.width = width;
+		this.scorer = scorer;
+	}
+	
+	/**
+	 * Returns the most assemblies this beam lets a parser pass on.
+	 * 
+	 * @return the width of this beam
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Returns a set of the highest ranked assemblies in the given 
+	 * set, no more than this beam's width of them, in their 
+	 * original order. Assemblies with equal rank are kept in the 
+	 * order they appear. Returns the given set if it is no wider 
+	 * than this beam.
+	 * 
+	 * @param AssemblySet the set to prune
+	 * 
+	 * @return the assemblies that fit in this beam
+	 */
+	public AssemblySet prune(AssemblySet in) {
+		int n = in.size();
+		if (n <= width) {
+			return in;
+		}
+		final double[] scores = new double[n];
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			scores[i] = score(in.get(i));
+			order[i] = new Integer(i);
+		}
+		Arrays.sort(order, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return Double.compare(
+					scores[((Integer) o2).intValue()],
+					scores[((Integer) o1).intValue()]);
+			}
+		});
+		boolean[] keep = new boolean[n];
+		for (int i = 0; i < width; i++) {
+			keep[order[i].intValue()] = true;
+		}
+		AssemblySet out = new AssemblySet(width);
+		for (int i = 0; i < n; i++) {
+			if (keep[i]) {
+				out.add(in.get(i));
+			}
+		}
+		prunings++;
+		pruned += n - width;
+		return out;
+	}
+	
+	/**
+	 * Returns how many assemblies this beam has dropped.
+	 * 
+	 * @return how many assemblies this beam has dropped
+	 */
+	public int pruned() {
+		return pruned;
+	}
+	
+	/**
+	 * Returns how many times this beam has cut a set of 
+	 * assemblies down to its width.
+	 * 
+	 * @return how many times this beam has pruned
+	 */
+	public int prunings() {
+		return prunings;
+	}
+	
+	/**
+	 * Forget how much this beam has pruned, to use it again.
+	 */
+	public void reset() {
+		prunings = 0;
+		pruned = 0;
+	}
+	
+	/*
+	 * Rank an assembly.
+	 */
+	protected double score(Assembly a) {
+		return scorer == null ? a.elementsConsumed() : scorer.score(a);
+	}
+	
+	/**
+	 * Returns a textual description of this beam and how much it 
+	 * has pruned.
+	 * 
+	 * @return a textual description of this beam
+	 */
+	public String toString() {
+		return "Beam(" + width + ") pruned " + pruned 
+			+ " assemblies in " + prunings + " sets";
+	}
+	
+	/**
+	 * Returns true if this beam has dropped any assemblies.
+	 * 
+	 * @return true, if this beam has pruned
+	 */
+	public boolean wasPruned() {
+		return prunings > 0;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * @(#)BoundedRepetition.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class BoundedRepetition extends Repetition {
+	
+	/**
+	 * a maximum that places no bound on the number of matches
+	 */
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+	
+	/*
+	 * the fewest times the subparser must match
+	 */
+	protected int min;
+	
+	/*
+	 * the most times the subparser may match
+	 */
+	protected int max;
+	
+	/**
+	 * Constructs a repetition of the given parser that matches it 
+	 * at least <code>min</code> and at most <code>max</code> times.
+	 * 
+	 * @param Parser
+	 *            the parser to repeat
+	 * 
+	 * @param int
+	 *            the fewest times to match
+	 * 
+	 * @param int
+	 *            the most times to match, or <code>UNBOUNDED</code>
+	 * 
+	 * @exception IllegalArgumentException
+	 *            if min is negative or max is less than min
+	 */
+	public BoundedRepetition(Parser p, int min, int max) {
+		this(p, min, max, null);
+	}
+	
+	/**
+	 * Constructs a repetition of the given parser with the given 
+	 * name that matches it at least <code>min</code> and at most 
+	 * <code>max</code> times.
+	 * 
+	 * @param Parser
+	 *            the parser to repeat
+	 * 
+	 * @param int
+	 *            the fewest times to match
+	 * 
+	 * @param int
+	 *            the most times to match, or <code>UNBOUNDED</code>
+	 * 
+	 * @param String
+	 *            a name to be known by
+	 * 
+	 * @exception IllegalArgumentException
+	 *            if min is negative or max is less than min
+	 */
+	public BoundedRepetition(Parser subparser, int min, int max, String name) {
+		super(subparser, name);
+		if (min < 0 || max < min) {
+			throw new IllegalArgumentException(
+				"Bad repetition bounds {" + min + "," + max + "}");
+		}
+		this.min = min;
+		this.max = max;
+	}
+	
+	/**
+	 * Accept a "visitor" and a collection of previously visited parsers.
+	 * 
+	 * @param ParserVisitor
+	 *            the visitor to accept
+	 * 
+	 * @param Vector
+	 *            a collection of previously visited parsers
+	 */
+	public void accept(ParserVisitor pv, Vector visited) {
+		pv.visitBoundedRepetition(this, visited);
+	}
+	
+	/**
+	 * Return the most times this repetition matches its subparser.
+	 * 
+	 * @return int the most times this repetition matches its 
+	 *         subparser, or <code>UNBOUNDED</code>
+	 */
+	public int getMax() {
+		return max;
+	}
+	
+	/**
+	 * Return the fewest times this repetition matches its subparser.
+	 * 
+	 * @return int the fewest times this repetition matches its 
+	 *         subparser
+	 */
+	public int getMin() {
+		return min;
+	}
+	
+	/**
+	 * Given a set of assemblies, this method applies a preassembler to all of
+	 * them, matches its subparser against them up to <code>max</code> 
+	 * times, and returns a new set of the assemblies that result from 
+	 * at least <code>min</code> matches.
+	 * <p>
+	 * For example, matching the regular expression <code>a{1,2}
+	 * </code> against <code>{^aaab}</code> results in <code>
+	 * {a^aab, aa^ab}</code>.
+	 * 
+	 * @return a set of assemblies that result from matching against a
+	 *         beginning set of assemblies
+	 * 
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
+	 * 
+	 */
+	public AssemblySet match(AssemblySet in) {
+		if (preAssembler != null) {
+			int n = in.size();
+			for (int i = 0; i < n; i++) {
+				in.get(i).assemble(preAssembler);
+			}
+		}
+		AssemblySet out = min == 0 ? in.elementClone() : new AssemblySet();
+		AssemblySet s = in; // a working state
+		int count = 0;
+		while (!s.isEmpty() && count < max) {
+			s = subparser.matchAndAssemble(s);
+			count++;
+			if (deduplicate) {
+				s = s.distinct();
+			}
+			if (count >= min) {
+				out.addAll(s);
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Create a collection of random elements that correspond to this
+	 * repetition, with at least <code>min</code> and at most 
+	 * <code>max</code> expansions of the subparser.
+	 */
+	protected Vector randomExpansion(int maxDepth, int depth) {
+		Vector v = new Vector();
+		int n = min;
+		if (depth < maxDepth) {
+			int extra = Math.min(max - min, EXPWIDTH);
+			n += (int) ((extra + 1) * Math.random());
+		}
+		for (int j = 0; j < n; j++) {
+			Vector w = subparser.randomExpansion(maxDepth, depth + 1);
+			Enumeration e = w.elements();
+			while (e.hasMoreElements()) {
+				v.addElement(e.nextElement());
+			}
+		}
+		return v;
+	}
+	
+	/*
+	 * Returns a textual description of this parser.
+	 */
+	protected String unvisitedString(Vector visited) {
+		String bounds = max == UNBOUNDED ? min + "," : min + "," + max;
+		return subparser.toString(visited) + "{" + bounds + "}";
+	}
+}
@@ -0,0 +1,527 @@
+/*
+ * @(#)CompiledParser.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class CompiledParser extends Parser {
+	
+	/**
+	 * Consume the next element if the terminal in the pool 
+	 * qualifies it, pushing it unless the terminal discards; 
+	 * otherwise the thread fails.
+	 */
+	public static final int SCAN = 0;
+	
+	/**
+	 * Replace the thread's assembly with the result of the pool 
+	 * terminal's <code>matchOneAssembly()</code>; the thread fails 
+	 * if that is null.
+	 */
+	public static final int MATCH = 1;
+	
+	/**
+	 * Let the assembler in the pool work on the thread's assembly.
+	 */
+	public static final int ASSEMBLE = 2;
+	
+	/**
+	 * Start a thread at the operand address with a copy of this 
+	 * thread's assembly, to run once this thread is done.
+	 */
+	public static final int FORK = 3;
+	
+	/**
+	 * Continue at the operand address.
+	 */
+	public static final int JUMP = 4;
+	
+	/**
+	 * Continue at the operand address, returning to the next 
+	 * instruction at the matching RET.
+	 */
+	public static final int CALL = 5;
+	
+	/**
+	 * Continue after the most recent unreturned CALL.
+	 */
+	public static final int RET = 6;
+	
+	/**
+	 * Match the parser in the pool with the object engine; the 
+	 * thread continues with the first result, and new threads 
+	 * continue with the others.
+	 */
+	public static final int DELEGATE = 7;
+	
+	/**
+	 * Add the thread's assembly to the results, ending the thread.
+	 */
+	public static final int ACCEPT = 8;
+	
+	/**
+	 * End the thread without a result.
+	 */
+	public static final int FAIL = 9;
+	
+	/**
+	 * Put the operand, the number of the alternative the thread 
+	 * took, on the front of the thread's order key.
+	 */
+	public static final int CHOICE = 10;
+	
+	/**
+	 * Start counting the times the thread goes around a 
+	 * repetition.
+	 */
+	public static final int OPEN = 11;
+	
+	/**
+	 * Add one to the count of the innermost open repetition.
+	 */
+	public static final int COUNT = 12;
+	
+	/**
+	 * Put the count of the innermost open repetition on the front 
+	 * of the thread's order key, and stop counting.
+	 */
+	public static final int CLOSE = 13;
+	
+	/**
+	 * the width of every instruction: an opcode and one operand
+	 */
+	public static final int WIDTH = 2;
+	
+	/*
+	 * the parser this parser was compiled from
+	 */
+	protected Parser source;
+	
+	/*
+	 * the instructions, each an opcode followed by an operand
+	 */
+	protected int[] code;
+	
+	/*
+	 * the terminals, assemblers and parsers that operands refer to
+	 */
+	protected Object[] pool;
+	
+	/*
+	 * An int linked to the ones before it. A thread's frames are 
+	 * the return addresses of its calls and the counts of the 
+	 * repetitions it is in, innermost first; threads forked inside 
+	 * a call share their frames. A thread's order key is the 
+	 * choices it has made, the one that counts most first.
+	 */
+	protected static class Link {
+		protected int value;
+		protected Link next;
+		
+		protected Link(int value, Link next) {
+			this.value = value;
+			this.next = next;
+		}
+	}
+	
+	/*
+	 * The threads waiting to run, kept in parallel arrays.
+	 */
+	protected static class Threads {
+		protected int[] pcs = new int[8];
+		protected Assembly[] assemblies = new Assembly[8];
+		protected Link[] frames = new Link[8];
+		protected Link[] keys = new Link[8];
+		protected int size;
+		
+		protected void push(int pc, Assembly a, Link f, Link key) {
+			if (size == pcs.length) {
+				int n = size * 2;
+				int[] p = new int[n];
+				Assembly[] as = new Assembly[n];
+				Link[] fs = new Link[n];
+				Link[] ks = new Link[n];
+				System.arraycopy(pcs, 0, p, 0, size);
+				System.arraycopy(assemblies, 0, as, 0, size);
+				System.arraycopy(frames, 0, fs, 0, size);
+				System.arraycopy(keys, 0, ks, 0, size);
+				pcs = p;
+				assemblies = as;
+				frames = fs;
+				keys = ks;
+			}
+			pcs[size] = pc;
+			assemblies[size] = a;
+			frames[size] = f;
+			keys[size] = key;
+			size++;
+		}
+	}
+	
+	/*
+	 * The assemblies of threads that reached ACCEPT, with their 
+	 * order keys. The set-based engine gives results in order of 
+	 * the choices that made them, later choices first: an 
+	 * alternation's results come alternative by alternative, and 
+	 * a repetition's come by how many times it matched, and then 
+	 * in the order of its last time around. Ordering by key gives 
+	 * the same order. Results that keep only the best assembly 
+	 * keep the one that consumes most, and of those the first in 
+	 * that order, as <code>best()</code> would.
+	 */
+	protected static class Results {
+		protected Assembly[] assemblies = new Assembly[8];
+		protected Link[] keys = new Link[8];
+		protected int size;
+		protected boolean bestOnly;
+		protected boolean untilComplete;
+		
+		protected Results(boolean bestOnly) {
+			this.bestOnly = bestOnly;
+		}
+		
+		protected void add(Assembly a, Link key) {
+			if (bestOnly && size > 0) {
+				int d = a.elementsConsumed() - assemblies[0].elementsConsumed();
+				if (d > 0 || (d == 0 && compare(key, keys[0]) < 0)) {
+					assemblies[0] = a;
+					keys[0] = key;
+				}
+				return;
+			}
+			if (size == assemblies.length) {
+				Assembly[] as = new Assembly[size * 2];
+				Link[] ks = new Link[size * 2];
+				System.arraycopy(assemblies, 0, as, 0, size);
+				System.arraycopy(keys, 0, ks, 0, size);
+				assemblies = as;
+				keys = ks;
+			}
+			assemblies[size] = a;
+			keys[size] = key;
+			size++;
+		}
+		
+		protected AssemblySet toSet() {
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = new Integer(i);
+			}
+			Arrays.sort(order, new Comparator() {
+				public int compare(Object o1, Object o2) {
+					return Results.compare(
+						keys[((Integer) o1).intValue()], 
+						keys[((Integer) o2).intValue()]);
+				}
+			});
+			AssemblySet out = new AssemblySet(size);
+			for (int i = 0; i < size; i++) {
+				out.add(assemblies[order[i].intValue()]);
+			}
+			return out;
+		}
+		
+		protected static int compare(Link k1, Link k2) {
+			while (k1 != null && k2 != null) {
+				if (k1.value != k2.value) {
+					return k1.value < k2.value ? -1 : 1;
+				}
+				k1 = k1.next;
+				k2 = k2.next;
+			}
+			return k1 == null ? (k2 == null ? 0 : -1) : 1;
+		}
+	}
+	
+	/**
+	 * Constructs a parser that runs the given instructions. Use a 
+	 * <code>ParserCompiler</code> to make them.
+	 * 
+	 * @param Parser the parser the instructions were compiled from
+	 * 
+	 * @param int[] the instructions
+	 * 
+	 * @param Object[] the objects the instructions refer to
+	 */
+	public CompiledParser(Parser source, int[] code, Object[] pool) {
+		super(source.getName());
+		this.source = source;
+		this.code = code;
+		this.pool = pool;
+	}
+	
+	/**
+	 * Accept a "visitor", which learns nothing of this parser's 
+	 * insides. A compiled parser does not match through the 
+	 * parsers it was compiled from, so visitors take it as a 
+	 * parser of unknown kind: an analyzer, for one, takes it to 
+	 * start with anything and to be able to match nothing.
+	 * 
+	 * @param ParserVisitor the visitor to accept
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void accept(ParserVisitor pv, Vector visited) {
+	}
+	
+	/**
+	 * Returns either null, or a completely matched version of the 
+	 * supplied assembly, returning as soon as one thread consumes 
+	 * every element and reaches the top-level ACCEPT. Threads still 
+	 * waiting on alternation and repetition forks never run, so on 
+	 * an ambiguous grammar the result may differ from the one 
+	 * <code>completeMatch()</code> returns. Parses that carry a beam 
+	 * match as other parsers do.
+	 * 
+	 * @param Assembly an assembly to match against
+	 * 
+	 * @return either null, or a completely matched version of the 
+	 *         supplied assembly
+	 */
+	public Assembly anyCompleteMatch(Assembly a) {
+		if (a.getBeam() != null) {
+			return super.anyCompleteMatch(a);
+		}
+		Results results = new Results(true);
+		results.untilComplete = true;
+		run((Assembly) a.clone(), results);
+		if (results.size == 0 || results.assemblies[0].hasMoreElements()) {
+			return null;
+		}
+		Assembly complete = results.assemblies[0];
+		if (assembler != null) {
+			complete.assemble(assembler);
+		}
+		complete.replay();
+		return complete;
+	}
+	
+	/**
+	 * Returns an assembly with the greatest possible number of 
+	 * elements consumed by matches of this parser: of those that 
+	 * consume most, the one the parser this parser was compiled 
+	 * from would pick. Every thread runs, since which of several 
+	 * equally long matches that parser picks depends on the order 
+	 * of all its results, but this method keeps only the best 
+	 * assembly so far rather than a set of them all. Parses that 
+	 * carry a beam match as other parsers do, so that the beam can 
+	 * rank them.
+	 * 
+	 * @param Assembly an assembly to match against
+	 * 
+	 * @return an assembly with the greatest possible number of 
+	 *         elements consumed by this parser
+	 */
+	public Assembly bestMatch(Assembly a) {
+		if (a.getBeam() != null) {
+			return super.bestMatch(a);
+		}
+		Results results = new Results(true);
+		run((Assembly) a.clone(), results);
+		if (results.size == 0) {
+			return null;
+		}
+		Assembly best = results.assemblies[0];
+		if (assembler != null) {
+			best.assemble(assembler);
+		}
+		best.replay();
+		return best;
+	}
+	
+	/**
+	 * Returns this parser's instructions.
+	 * 
+	 * @return this parser's instructions
+	 */
+	public int[] getCode() {
+		return code;
+	}
+	
+	/**
+	 * Returns the parser this parser was compiled from.
+	 * 
+	 * @return the parser this parser was compiled from
+	 */
+	public Parser getSource() {
+		return source;
+	}
+	
+	/**
+	 * Given a set of assemblies, this method runs this parser's 
+	 * instructions against each of them, and returns a new set of 
+	 * the assemblies that result. The results are the same as the 
+	 * parser this parser was compiled from would give, in the same 
+	 * order. A delegated parser sees one assembly at a time, so 
+	 * its results are in the order it gives for each assembly 
+	 * alone, and if it drops duplicate results, duplicates that 
+	 * reach it from different threads survive.
+	 * 
+	 * @param AssemblySet a set of assemblies to match against
+	 * 
+	 * @return a set of assemblies that result from matching 
+	 *         against a beginning set of assemblies
+	 */
+	public AssemblySet match(AssemblySet in) {
+		Results results = new Results(false);
+		int n = in.size();
+		for (int i = 0; i < n; i++) {
+			run((Assembly) in.get(i).clone(), results);
+		}
+		return results.toSet();
+	}
+	
+	/*
+	 * Create a random expansion of the parser this parser was 
+	 * compiled from.
+	 */
+	protected Vector randomExpansion(int maxDepth, int depth) {
+		return source.randomExpansion(maxDepth, depth);
+	}
+	
+	/*
+	 * Run every thread that starts from the given assembly, adding 
+	 * the assemblies of threads that reach ACCEPT to the results. 
+	 * A thread owns its assembly, so instructions change it in 
+	 * place; FORK gives the new thread a copy.
+	 */
+	protected void run(Assembly start, Results out) {
+		Threads threads = new Threads();
+		threads.push(0, start, null, null);
+		run(threads, out, null);
+	}
+	
+	/*
+	 * Run the given threads, as above. If there is a place to 
+	 * put threads that wait, more elements may still arrive: a 
+	 * thread that needs an element its assembly does not have yet 
+	 * waits there, as does a thread that would delegate, since a 
+	 * delegated parser must see all its input at once.
+	 */
+	protected void run(Threads threads, Results out, Threads waiting) {
+		while (threads.size > 0) {
+			int t = --threads.size;
+			int pc = threads.pcs[t];
+			Assembly a = threads.assemblies[t];
+			Link f = threads.frames[t];
+			Link key = threads.keys[t];
+			threads.assemblies[t] = null;
+			threads.frames[t] = null;
+			threads.keys[t] = null;
+			boolean alive = true;
+			while (alive) {
+				int operand = code[pc + 1];
+				int op = code[pc];
+				if (waiting != null && (op == DELEGATE 
+					|| ((op == SCAN || op == MATCH) && !a.hasMoreElements()))) {
+					
+					waiting.push(pc, a, f, key);
+					break;
+				}
+				switch (op) {
+				case SCAN:
+					Terminal term = (Terminal) pool[operand];
+					if (a.hasMoreElements() && term.qualifies(a.peek())) {
+						Object o = a.nextElement();
+						if (!term.discard) {
+							a.push(o);
+						}
+						pc += WIDTH;
+					} else {
+						alive = false;
+					}
+					break;
+				case MATCH:
+					a = ((Terminal) pool[operand]).matchOneAssembly(a);
+					alive = a != null;
+					pc += WIDTH;
+					break;
+				case ASSEMBLE:
+					a.assemble((Assembler) pool[operand]);
+					pc += WIDTH;
+					break;
+				case FORK:
+					threads.push(operand, (Assembly) a.clone(), f, key);
+					pc += WIDTH;
+					break;
+				case JUMP:
+					pc = operand;
+					break;
+				case CALL:
+					f = new Link(pc + WIDTH, f);
+					pc = operand;
+					break;
+				case RET:
+					pc = f.value;
+					f = f.next;
+					break;
+				case DELEGATE:
+					Parser p = (Parser) pool[operand];
+					AssemblySet s = p.matchAndAssemble(new AssemblySet(a));
+					pc += WIDTH;
+					for (int i = s.size() - 1; i > 0; i--) {
+						threads.push(pc, s.get(i), f, new Link(i, key));
+					}
+					alive = !s.isEmpty();
+					if (alive) {
+						a = s.get(0);
+						key = new Link(0, key);
+					}
+					break;
+				case CHOICE:
+					key = new Link(operand, key);
+					pc += WIDTH;
+					break;
+				case OPEN:
+					f = new Link(0, f);
+					pc += WIDTH;
+					break;
+				case COUNT:
+					f = new Link(f.value + 1, f.next);
+					pc += WIDTH;
+					break;
+				case CLOSE:
+					key = new Link(f.value, key);
+					f = f.next;
+					pc += WIDTH;
+					break;
+				case ACCEPT:
+					out.add(a, key);
+					if (out.untilComplete && !a.hasMoreElements()) {
+						return;
+					}
+					alive = false;
+					break;
+				default:
+					alive = false;
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Returns a textual description of this parser.
+	 */
+	protected String unvisitedString(Vector visited) {
+		return source.toString(visited);
+	}
+}
@@ -44,12 +44,12 @@ public class Empty extends Parser {
 	 * 
 	 * @return the input set of states
 	 * 
-	 * @param Vector
-	 *            a vector of assemblies to match against
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
 	 * 
 	 */
-	public Vector match(Vector in) {
-		return elementClone(in);
+	public AssemblySet match(AssemblySet in) {
+		return in.elementClone();
 	}
 
 	/*
@@ -0,0 +1,149 @@
+/*
+ * @(#)ErrorRecovery.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class ErrorRecovery {
+	
+	/*
+	 * the parser of one unit
+	 */
+	protected Parser parser;
+	
+	/*
+	 * the elements that end a unit
+	 */
+	protected HashSet sync = new HashSet();
+	
+	/**
+	 * Constructs a recovering parse of units the given parser 
+	 * matches. Add the elements that separate units with 
+	 * <code>addSync()</code>.
+	 * 
+	 * @param Parser the parser of one unit
+	 */
+	public ErrorRecovery(Parser parser) {
+		this.parser = parser;
+	}
+	
+	/**
+	 * Adds an element that separates units, such as a token for 
+	 * ',' or ';'. An element is a separator if it equals one 
+	 * added here.
+	 * 
+	 * @param Object an element that separates units
+	 * 
+	 * @return this
+	 */
+	public ErrorRecovery addSync(Object element) {
+		sync.add(element);
+		return this;
+	}
+	
+	/*
+	 * Returns true if the given assembly is at the end of a unit.
+	 */
+	protected boolean atBoundary(Assembly a) {
+		return !a.hasMoreElements() || isSync(a.peek());
+	}
+	
+	/*
+	 * Returns true if the given element separates units.
+	 */
+	protected boolean isSync(Object o) {
+		return sync.contains(o);
+	}
+	
+	/**
+	 * Matches the given assembly as a series of units, each 
+	 * followed by a separator or the end of the input, and keeps 
+	 * going when a unit fails. A unit matches if the parser can 
+	 * consume at least one element and end just before a 
+	 * separator; the longest such match wins, and its assemblers' 
+	 * work stays on the assembly. When a unit fails, the elements 
+	 * up to the next separator after the furthest point any match 
+	 * reached are skipped and recorded as an error, and parsing 
+	 * resumes after the separator. Separators with no unit before 
+	 * them are skipped silently.
+	 * <p>
+	 * Each unit's parser starts where the unit starts and sees 
+	 * the rest of the input, separators included. Nothing is 
+	 * re-tokenized or matched again after an error, but a parser 
+	 * that can match a separator may match on past it, and if 
+	 * that is the longest match that ends before a separator, the 
+	 * unit takes in the separators it crossed. The parser should 
+	 * match a unit without its separator.
+	 * 
+	 * @param Assembly the assembly to match
+	 * 
+	 * @return the assembly after every unit that matched, and 
+	 *         the errors
+	 */
+	public RecoveryResult parse(Assembly a) {
+		Vector errors = new Vector();
+		Assembly current = (Assembly) a.clone();
+		while (current.hasMoreElements()) {
+			if (isSync(current.peek())) {
+				current.nextElement();
+				continue;
+			}
+			int start = current.elementsConsumed();
+			int reached = start;
+			Assembly good = null;
+			Assembly probe = (Assembly) current.clone();
+			probe.setReachTracking(true);
+			AssemblySet out = parser.matchAndAssemble(new AssemblySet(probe));
+			int n = out.size();
+			for (int i = 0; i < n; i++) {
+				Assembly b = out.get(i);
+				int consumed = b.elementsConsumed();
+				reached = Math.max(reached, consumed);
+				if (consumed > start && atBoundary(b) 
+					&& (good == null || consumed > good.elementsConsumed())) {
+					
+					good = b;
+				}
+			}
+			reached = Math.max(reached, probe.furthestReached());
+			if (good != null) {
+				current = good;
+				current.setReachTracking(false);
+			} else {
+				Vector skipped = new Vector();
+				while (current.hasMoreElements() 
+					&& (current.elementsConsumed() < reached 
+						|| !isSync(current.peek()))) {
+					
+					skipped.addElement(current.nextElement());
+				}
+				errors.addElement(new ParseError(
+					start, reached, current.elementsConsumed(), skipped));
+			}
+			if (current.hasMoreElements()) {
+				current.nextElement();
+			}
+		}
+		current.replay();
+		return new RecoveryResult(current, errors);
+	}
+}
@@ -0,0 +1,647 @@
+/*
+ * @(#)GrammarAnalyzer.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class GrammarAnalyzer extends ParserVisitor {
+	
+	/**
+	 * a terminal that stands for any element; it is in the first 
+	 * set of parsers that do not say what they match
+	 */
+	public static final Terminal ANY = new Terminal("any");
+	
+	/**
+	 * a terminal that stands for the end of the input; it is in 
+	 * the follow set of each parser analyzed as a start
+	 */
+	public static final Terminal END = new Terminal("end");
+	
+	/**
+	 * the minimum length of a parser that cannot match anything
+	 */
+	public static final int INFINITE = Integer.MAX_VALUE;
+	
+	/*
+	 * what a round of visiting works out
+	 */
+	protected static final int COLLECT = 0;
+	protected static final int FIRST = 1;
+	protected static final int FOLLOW = 2;
+	
+	/*
+	 * every parser found so far, in the order found
+	 */
+	protected Vector parsers = new Vector();
+	
+	/*
+	 * the parsers analyze() was given
+	 */
+	protected Vector starts = new Vector();
+	
+	/*
+	 * for each parser, a vector of the terminals that can match 
+	 * the first element it consumes
+	 */
+	protected IdentityHashMap first = new IdentityHashMap();
+	
+	/*
+	 * for each parser, a vector of the terminals that can match 
+	 * the element after the ones it consumes
+	 */
+	protected IdentityHashMap follow = new IdentityHashMap();
+	
+	/*
+	 * for each parser, the parsers it may call without having 
+	 * consumed anything
+	 */
+	protected IdentityHashMap leftCalls = new IdentityHashMap();
+	
+	/*
+	 * for each parser, a one-slot array holding the fewest 
+	 * elements it can consume
+	 */
+	protected IdentityHashMap minLength = new IdentityHashMap();
+	
+	/*
+	 * the parsers that can match without consuming anything
+	 */
+	protected IdentityHashMap nullable = new IdentityHashMap();
+	
+	/*
+	 * repetitions with no upper bound over a parser that can 
+	 * match without consuming anything
+	 */
+	protected Vector runaway = new Vector();
+	
+	/*
+	 * parsers that can call themselves without consuming anything
+	 */
+	protected Vector leftRecursive;
+	
+	/*
+	 * what the current round of visiting works out
+	 */
+	protected int phase;
+	
+	/*
+	 * true once follow sets reflect every parser found
+	 */
+	protected boolean followed;
+	
+	/*
+	 * set when a parser's accept() calls back into this visitor
+	 */
+	protected boolean visited;
+	
+	/*
+	 * set when a round of computing changes any parser's facts
+	 */
+	protected boolean changed;
+	
+	/**
+	 * Constructs an analyzer that knows nothing yet.
+	 */
+	public GrammarAnalyzer() {
+	}
+	
+	/**
+	 * Constructs an analyzer of the grammar that starts with the 
+	 * given parser.
+	 * 
+	 * @param Parser the parser to analyze
+	 */
+	public GrammarAnalyzer(Parser start) {
+		analyze(start);
+	}
+	
+	/*
+	 * Add the minimum lengths of two parsers, without overflowing.
+	 */
+	protected static int add(int a, int b) {
+		return (int) Math.min((long) a + b, INFINITE);
+	}
+	
+	/**
+	 * Finds every parser reachable from the given one and works 
+	 * out which terminals can start each of them, which of them 
+	 * can match without consuming anything, and the fewest 
+	 * elements each of them can consume. Recursive grammars are 
+	 * fine; the analysis repeats until nothing more is learned. A 
+	 * parser that does not accept visitors is taken to start with 
+	 * anything and to be able to match nothing.
+	 * 
+	 * @param Parser the parser to analyze
+	 */
+	public void analyze(Parser start) {
+		starts.addElement(start);
+		followed = false;
+		phase = COLLECT;
+		int i = parsers.size();
+		reach(start);
+		for (; i < parsers.size(); i++) {
+			((Parser) parsers.elementAt(i)).accept(this, parsers);
+		}
+		phase = FIRST;
+		do {
+			changed = false;
+			int n = parsers.size();
+			for (int j = 0; j < n; j++) {
+				Parser p = (Parser) parsers.elementAt(j);
+				visited = false;
+				p.accept(this, parsers);
+				if (!visited) {
+					include(first, p, ANY);
+					setNullable(p);
+					lower(p, 0);
+				}
+			}
+		} while (changed);
+	}
+	
+	/**
+	 * Gives each parser this analyzer has analyzed its minimum 
+	 * length, so that it skips assemblies with too few elements 
+	 * left for it to match.
+	 */
+	public void annotate() {
+		int n = parsers.size();
+		for (int i = 0; i < n; i++) {
+			Parser p = (Parser) parsers.elementAt(i);
+			p.setMinLength(minLength(p));
+		}
+	}
+	
+	/**
+	 * Checks that no repetition in the grammar would match 
+	 * forever. Optimizing or compiling a grammar makes this check 
+	 * first.
+	 * 
+	 * @exception IllegalArgumentException if a repetition with no 
+	 *            upper bound repeats a parser that can match nothing
+	 */
+	public void checkRepetitions() {
+		if (!runawayRepetitions().isEmpty()) {
+			throw new IllegalArgumentException(
+				(String) warnings().elementAt(0));
+		}
+	}
+	
+	/*
+	 * Work out follow sets, the calls parsers make before 
+	 * consuming anything, and the repetitions that would never 
+	 * stop.
+	 */
+	protected void computeFollow() {
+		if (followed) {
+			return;
+		}
+		follow.clear();
+		leftCalls.clear();
+		runaway.removeAllElements();
+		leftRecursive = null;
+		int n = parsers.size();
+		for (int i = 0; i < n; i++) {
+			Parser p = (Parser) parsers.elementAt(i);
+			follow.put(p, new Vector());
+			leftCalls.put(p, new Vector());
+		}
+		n = starts.size();
+		for (int i = 0; i < n; i++) {
+			include(follow, (Parser) starts.elementAt(i), END);
+		}
+		phase = FOLLOW;
+		do {
+			changed = false;
+			n = parsers.size();
+			for (int i = 0; i < n; i++) {
+				((Parser) parsers.elementAt(i)).accept(this, parsers);
+			}
+		} while (changed);
+		followed = true;
+	}
+	
+	/**
+	 * Returns the terminals that can match the first element the 
+	 * given parser consumes. The vector holds <code>ANY</code> if 
+	 * the parser may start with any element.
+	 * 
+	 * @param Parser a parser this analyzer has analyzed
+	 * 
+	 * @return a vector of terminals
+	 */
+	public Vector first(Parser p) {
+		return set(first, p);
+	}
+	
+	/**
+	 * Returns the terminals that can match the element after the 
+	 * ones the given parser consumes, wherever the grammar uses 
+	 * it. The vector holds <code>END</code> if the parser may end 
+	 * the input, and <code>ANY</code> if any element may follow.
+	 * 
+	 * @param Parser a parser this analyzer has analyzed
+	 * 
+	 * @return a vector of terminals
+	 */
+	public Vector follow(Parser p) {
+		first(p);
+		computeFollow();
+		return set(follow, p);
+	}
+	
+	/*
+	 * Add every terminal in one parser's set to another parser's 
+	 * set.
+	 */
+	protected void include(IdentityHashMap sets, Parser p, Vector from) {
+		int n = from.size();
+		for (int i = 0; i < n; i++) {
+			include(sets, p, (Terminal) from.elementAt(i));
+		}
+	}
+	
+	/*
+	 * Add a terminal to a parser's set.
+	 */
+	protected void include(IdentityHashMap sets, Parser p, Terminal t) {
+		Vector v = set(sets, p);
+		if (!v.contains(t)) {
+			v.addElement(t);
+			changed = true;
+		}
+	}
+	
+	/**
+	 * Returns true if the given parser can match without 
+	 * consuming any elements.
+	 * 
+	 * @param Parser a parser this analyzer has analyzed
+	 * 
+	 * @return true, if the parser can match without consuming 
+	 *         any elements
+	 */
+	public boolean isNullable(Parser p) {
+		first(p);
+		return nullable.containsKey(p);
+	}
+	
+	/**
+	 * Returns the parsers that can call themselves again without 
+	 * consuming anything. These match only with a 
+	 * <code>PackratMemo</code>, which grows their results; 
+	 * without one they recurse until the stack overflows.
+	 * 
+	 * @return a vector of the left recursive parsers, in the 
+	 *         order they were found
+	 */
+	public Vector leftRecursive() {
+		computeFollow();
+		if (leftRecursive == null) {
+			leftRecursive = new Vector();
+			int n = parsers.size();
+			for (int i = 0; i < n; i++) {
+				Parser p = (Parser) parsers.elementAt(i);
+				if (leftReaches(p, p)) {
+					leftRecursive.addElement(p);
+				}
+			}
+		}
+		return leftRecursive;
+	}
+	
+	/*
+	 * Returns true if one parser may call another, at any depth, 
+	 * without consuming anything.
+	 */
+	protected boolean leftReaches(Parser from, Parser to) {
+		IdentityHashMap seen = new IdentityHashMap();
+		Vector todo = new Vector();
+		todo.addElement(from);
+		while (!todo.isEmpty()) {
+			Parser p = (Parser) todo.remove(todo.size() - 1);
+			Vector calls = (Vector) leftCalls.get(p);
+			int n = calls.size();
+			for (int i = 0; i < n; i++) {
+				Parser q = (Parser) calls.elementAt(i);
+				if (q == to) {
+					return true;
+				}
+				if (seen.put(q, q) == null) {
+					todo.addElement(q);
+				}
+			}
+		}
+		return false;
+	}
+	
+	/*
+	 * Note that one parser may call another without consuming 
+	 * anything.
+	 */
+	protected void leftCall(Parser p, Parser sub) {
+		Vector v = (Vector) leftCalls.get(p);
+		if (!v.contains(sub)) {
+			v.addElement(sub);
+		}
+	}
+	
+	/*
+	 * Record that a parser can consume as few as the given number 
+	 * of elements.
+	 */
+	protected void lower(Parser p, int length) {
+		int[] m = (int[]) minLength.get(p);
+		if (length < m[0]) {
+			m[0] = length;
+			changed = true;
+		}
+	}
+	
+	/**
+	 * Returns the fewest elements the given parser consumes when 
+	 * it matches. An assembly with fewer elements left cannot 
+	 * match the parser.
+	 * 
+	 * @param Parser a parser this analyzer has analyzed
+	 * 
+	 * @return the fewest elements the parser consumes, or 
+	 *         <code>INFINITE</code> if it can never match
+	 */
+	public int minLength(Parser p) {
+		first(p);
+		return ((int[]) minLength.get(p))[0];
+	}
+	
+	/*
+	 * Note a parser, if it is new.
+	 */
+	protected void reach(Parser p) {
+		if (!first.containsKey(p)) {
+			first.put(p, new Vector());
+			minLength.put(p, new int[] {INFINITE});
+			parsers.addElement(p);
+		}
+	}
+	
+	/**
+	 * Returns the repetitions with no upper bound whose subparser 
+	 * can match without consuming anything. Matching one of these 
+	 * never stops.
+	 * 
+	 * @return a vector of the repetitions that never stop
+	 */
+	public Vector runawayRepetitions() {
+		computeFollow();
+		return runaway;
+	}
+	
+	/*
+	 * Returns a parser's set from the given map.
+	 */
+	protected Vector set(IdentityHashMap sets, Parser p) {
+		Vector v = (Vector) sets.get(p);
+		if (v == null) {
+			throw new IllegalArgumentException(
+				"Parser " + p + " has not been analyzed");
+		}
+		return v;
+	}
+	
+	/*
+	 * Record that a parser can match without consuming anything.
+	 */
+	protected void setNullable(Parser p) {
+		if (!nullable.containsKey(p)) {
+			nullable.put(p, p);
+			changed = true;
+		}
+	}
+	
+	/**
+	 * An alternation starts and ends like any of its subparsers, 
+	 * can match nothing if any of them can, and is as short as its 
+	 * shortest subparser.
+	 * 
+	 * @param Alternation the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitAlternation(Alternation a, Vector v) {
+		visited = true;
+		Vector subs = a.getSubparsers();
+		int n = subs.size();
+		for (int i = 0; i < n; i++) {
+			Parser sub = (Parser) subs.elementAt(i);
+			if (phase == COLLECT) {
+				reach(sub);
+			} else if (phase == FIRST) {
+				include(first, a, first(sub));
+				if (isNullable(sub)) {
+					setNullable(a);
+				}
+				lower(a, minLength(sub));
+			} else {
+				include(follow, sub, set(follow, a));
+				leftCall(a, sub);
+			}
+		}
+	}
+	
+	/**
+	 * A bounded repetition starts with whatever its subparser 
+	 * starts with, and can match nothing if its minimum is zero or 
+	 * its subparser can match nothing.
+	 * 
+	 * @param BoundedRepetition the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitBoundedRepetition(BoundedRepetition r, Vector v) {
+		visited = true;
+		Parser sub = r.getSubparser();
+		if (phase == COLLECT) {
+			reach(sub);
+		} else if (phase == FIRST) {
+			include(first, r, first(sub));
+			if (r.getMin() == 0 || isNullable(sub)) {
+				setNullable(r);
+			}
+			int m = minLength(sub);
+			lower(r, r.getMin() == 0 ? 0 
+				: (int) Math.min((long) r.getMin() * m, INFINITE));
+		} else {
+			include(follow, sub, set(follow, r));
+			if (r.getMax() > 1) {
+				include(follow, sub, first(sub));
+			}
+			leftCall(r, sub);
+			if (r.getMax() == BoundedRepetition.UNBOUNDED 
+				&& isNullable(sub) && !runaway.contains(r)) {
+				
+				runaway.addElement(r);
+			}
+		}
+	}
+	
+	/**
+	 * An empty parser starts with nothing and matches nothing.
+	 * 
+	 * @param Empty the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitEmpty(Empty e, Vector v) {
+		visited = true;
+		if (phase == FIRST) {
+			setNullable(e);
+			lower(e, 0);
+		}
+	}
+	
+	/**
+	 * A repetition starts with whatever its subparser starts 
+	 * with, can always match nothing, and is followed by its 
+	 * subparser or by whatever follows it.
+	 * 
+	 * @param Repetition the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitRepetition(Repetition r, Vector v) {
+		visited = true;
+		Parser sub = r.getSubparser();
+		if (phase == COLLECT) {
+			reach(sub);
+		} else if (phase == FIRST) {
+			include(first, r, first(sub));
+			setNullable(r);
+			lower(r, 0);
+		} else {
+			include(follow, sub, set(follow, r));
+			include(follow, sub, first(sub));
+			leftCall(r, sub);
+			if (isNullable(sub) && !runaway.contains(r)) {
+				runaway.addElement(r);
+			}
+		}
+	}
+	
+	/**
+	 * A sequence starts with whatever its first subparser starts 
+	 * with, and also with whatever the next one starts with for as 
+	 * long as the earlier ones can match nothing. Each subparser 
+	 * is followed by the ones after it in the same way, and the 
+	 * last ones by whatever follows the sequence. A sequence is as 
+	 * long as its subparsers put together.
+	 * 
+	 * @param Sequence the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitSequence(Sequence s, Vector v) {
+		visited = true;
+		Vector subs = s.getSubparsers();
+		int n = subs.size();
+		if (phase == COLLECT) {
+			for (int i = 0; i < n; i++) {
+				reach((Parser) subs.elementAt(i));
+			}
+		} else if (phase == FIRST) {
+			boolean nullSoFar = true;
+			int length = 0;
+			for (int i = 0; i < n; i++) {
+				Parser sub = (Parser) subs.elementAt(i);
+				if (nullSoFar) {
+					include(first, s, first(sub));
+					nullSoFar = isNullable(sub);
+				}
+				length = add(length, minLength(sub));
+			}
+			if (nullSoFar) {
+				setNullable(s);
+			}
+			lower(s, length);
+		} else {
+			for (int i = 0; i < n; i++) {
+				Parser sub = (Parser) subs.elementAt(i);
+				int j = i + 1;
+				for (; j < n; j++) {
+					Parser next = (Parser) subs.elementAt(j);
+					include(follow, sub, first(next));
+					if (!isNullable(next)) {
+						break;
+					}
+				}
+				if (j == n) {
+					include(follow, sub, set(follow, s));
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				Parser sub = (Parser) subs.elementAt(i);
+				leftCall(s, sub);
+				if (!isNullable(sub)) {
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * A terminal starts with itself and consumes one element.
+	 * 
+	 * @param Terminal the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitTerminal(Terminal t, Vector v) {
+		visited = true;
+		if (phase == FIRST) {
+			include(first, t, t);
+			lower(t, 1);
+		}
+	}
+	
+	/**
+	 * Returns a description of each problem found in the grammar: 
+	 * repetitions that never stop, and parsers that call 
+	 * themselves without consuming anything.
+	 * 
+	 * @return a vector of strings, empty if the grammar has no 
+	 *         problems this analyzer knows of
+	 */
+	public Vector warnings() {
+		Vector w = new Vector();
+		Vector r = runawayRepetitions();
+		for (int i = 0; i < r.size(); i++) {
+			w.addElement("Repetition of a parser that can match " 
+				+ "nothing never stops: " + r.elementAt(i));
+		}
+		Vector left = leftRecursive();
+		for (int i = 0; i < left.size(); i++) {
+			w.addElement("Left recursive; needs a packrat memo: " 
+				+ left.elementAt(i));
+		}
+		return w;
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * @(#)LookaheadTable.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class LookaheadTable {
+	
+	/*
+	 * for each lookahead key, the sorted positions of the parsers 
+	 * that might match an element with that key
+	 */
+	protected HashMap table = new HashMap();
+	
+	/*
+	 * the sorted positions of the parsers that might match 
+	 * whatever comes next, including nothing
+	 */
+	protected int[] always;
+	
+	/**
+	 * Constructs a table that tells which of an alternation's 
+	 * subparsers might match an assembly, given the assembly's 
+	 * next element.
+	 * 
+	 * @param Alternation the alternation to build a table for
+	 */
+	public LookaheadTable(Alternation a) {
+		this(a.getSubparsers(), new GrammarAnalyzer(a));
+	}
+	
+	/**
+	 * Constructs a table that tells which of the given parsers 
+	 * might match an assembly, given the assembly's next element.
+	 * 
+	 * @param Vector the parsers to choose between
+	 * 
+	 * @param GrammarAnalyzer an analyzer that has analyzed each of 
+	 *        the parsers
+	 */
+	public LookaheadTable(Vector parsers, GrammarAnalyzer analyzer) {
+		Vector anything = new Vector();
+		HashMap keyed = new HashMap();
+		int n = parsers.size();
+		for (int i = 0; i < n; i++) {
+			Parser p = (Parser) parsers.elementAt(i);
+			if (analyzer.isNullable(p) || !file(i, analyzer.first(p), keyed)) {
+				anything.addElement(new Integer(i));
+			}
+		}
+		always = toArray(anything);
+		Iterator e = keyed.entrySet().iterator();
+		while (e.hasNext()) {
+			Map.Entry entry = (Map.Entry) e.next();
+			int[] positions = toArray((Vector) entry.getValue());
+			table.put(entry.getKey(), merge(positions, always));
+		}
+	}
+	
+	/**
+	 * Returns the positions, in increasing order, of the parsers 
+	 * that might match an assembly whose next element has the 
+	 * given keys. Returns null if the keys are null, meaning that 
+	 * every parser might match.
+	 * 
+	 * @param Object[] the keys from 
+	 *        <code>Assembly.peekLookaheadKeys()</code>
+	 * 
+	 * @return the positions of the parsers worth trying, or null
+	 */
+	public int[] candidates(Object[] keys) {
+		if (keys == null) {
+			return null;
+		}
+		int[] found = null;
+		for (int i = 0; i < keys.length; i++) {
+			int[] positions = (int[]) table.get(keys[i]);
+			if (positions != null) {
+				found = found == null ? positions : merge(found, positions);
+			}
+		}
+		return found == null ? always : found;
+	}
+	
+	/*
+	 * File the parser at the given position under the keys of 
+	 * each terminal it can start with. Returns false if one of 
+	 * the terminals might match anything.
+	 */
+	protected boolean file(int position, Vector terminals, HashMap keyed) {
+		Integer i = new Integer(position);
+		int n = terminals.size();
+		for (int j = 0; j < n; j++) {
+			Object[] keys = ((Terminal) terminals.elementAt(j)).lookaheadKeys();
+			if (keys == null) {
+				return false;
+			}
+			for (int k = 0; k < keys.length; k++) {
+				Vector v = (Vector) keyed.get(keys[k]);
+				if (v == null) {
+					v = new Vector();
+					keyed.put(keys[k], v);
+				}
+				if (v.isEmpty() || !v.lastElement().equals(i)) {
+					v.addElement(i);
+				}
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Merge two increasing arrays into one, without duplicates.
+	 */
+	protected static int[] merge(int[] a, int[] b) {
+		if (b.length == 0) {
+			return a;
+		}
+		if (a.length == 0) {
+			return b;
+		}
+		int[] c = new int[a.length + b.length];
+		int i = 0, j = 0, k = 0;
+		while (i < a.length || j < b.length) {
+			if (j == b.length || (i < a.length && a[i] < b[j])) {
+				c[k++] = a[i++];
+			} else if (i == a.length || b[j] < a[i]) {
+				c[k++] = b[j++];
+			} else {
+				c[k++] = a[i++];
+				j++;
+			}
+		}
+		if (k < c.length) {
+			int[] shorter = new int[k];
+			System.arraycopy(c, 0, shorter, 0, k);
+			return shorter;
+		}
+		return c;
+	}
+	
+	/*
+	 * Copy a vector of Integers into an array.
+	 */
+	protected static int[] toArray(Vector v) {
+		int[] a = new int[v.size()];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = ((Integer) v.elementAt(i)).intValue();
+		}
+		return a;
+	}
+}
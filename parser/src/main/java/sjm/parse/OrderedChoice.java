@@ -0,0 +1,124 @@
+/*
+ * @(#)OrderedChoice.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+public class OrderedChoice extends Alternation {
+	
+	/**
+	 * Constructs a nameless ordered choice.
+	 */
+	public OrderedChoice() {
+	}
+	
+	/**
+	 * Constructs an ordered choice with the given name.
+	 * 
+	 * @param name
+	 *            a name to be known by
+	 */
+	public OrderedChoice(String name) {
+		super(name);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parser.
+	 */
+	public OrderedChoice(Parser p) {
+		super(p);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parsers.
+	 */
+	public OrderedChoice(Parser p1, Parser p2) {
+		super(p1, p2);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parsers.
+	 */
+	public OrderedChoice(Parser p1, Parser p2, Parser p3) {
+		super(p1, p2, p3);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parsers.
+	 */
+	public OrderedChoice(Parser p1, Parser p2, Parser p3, Parser p4) {
+		super(p1, p2, p3, p4);
+	}
+	
+	/**
+	 * Given a set of assemblies, this method tries this choice's 
+	 * parsers against each assembly in the order they were added, 
+	 * and keeps the results of the first parser that matches. Later 
+	 * parsers are not tried against that assembly.
+	 * <p>
+	 * For example, matching <code>"a" / "a" "b"</code> against 
+	 * <code>{^ab}</code> results in <code>{a^b}</code>, where an 
+	 * alternation would also produce <code>{ab^}</code>.
+	 * 
+	 * @return a set of assemblies that result from matching against a
+	 *         beginning set of assemblies
+	 * 
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
+	 * 
+	 */
+	public AssemblySet match(AssemblySet in) {
+		if (in.size() == 1) {
+			return matchFirst(in);
+		}
+		AssemblySet out = new AssemblySet();
+		int n = in.size();
+		for (int i = 0; i < n; i++) {
+			out.addAll(matchFirst(new AssemblySet(in.get(i))));
+		}
+		return out;
+	}
+	
+	/*
+	 * Return the results of the first subparser that matches the 
+	 * single assembly in the given set.
+	 */
+	protected AssemblySet matchFirst(AssemblySet one) {
+		int[] c = candidates(one.get(0));
+		int n = c == null ? subparsers.size() : c.length;
+		for (int i = 0; i < n; i++) {
+			int j = c == null ? i : c[i];
+			Parser p = (Parser) subparsers.elementAt(j);
+			AssemblySet out = p.matchAndAssemble(one);
+			if (!out.isEmpty()) {
+				return out;
+			}
+		}
+		return new AssemblySet();
+	}
+	
+	/*
+	 * Returns the string to show between the parsers this parser is a
+	 * choice between.
+	 */
+	protected String toStringSeparator() {
+		return "/";
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ * @(#)PackratMemo.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class PackratMemo {
+	
+	/**
+	 * for each parser, an array with one slot per position in the
+	 * assembly; each slot holds the entries recorded there
+	 */
+	protected IdentityHashMap table = new IdentityHashMap();
+	
+	/**
+	 * how many times a parser's results were replayed
+	 */
+	protected int hits;
+	
+	/**
+	 * how many times a parser had to match for real
+	 */
+	protected int misses;
+	
+	/**
+	 * the entries being worked out, innermost last
+	 */
+	protected Vector active = new Vector();
+	
+	/*
+	 * One recorded match: the state a parser started from, and
+	 * copies of the assemblies it produced, assembler included. 
+	 * While the match is in progress the outputs are the seed 
+	 * that a left recursive call gets. An entry that used another 
+	 * entry's seed is involved, and is not kept once finished. 
+	 * The reach is the furthest position the match looked at: the 
+	 * entry holds while nothing up to there changes.
+	 */
+	protected static class Entry {
+		protected Assembly input;
+		protected AssemblySet outputs;
+		protected int reached;
+		protected boolean inProgress;
+		protected boolean recursive;
+		protected boolean involved;
+
+		protected Entry(Assembly input) {
+			this.input = input;
+		}
+	}
+	
+	/*
+	 * Returns the entries in the given list that looked at nothing 
+	 * at or after the given position, or null if there are none.
+	 */
+	protected static Vector before(Vector entries, int start) {
+		if (entries == null) {
+			return null;
+		}
+		Vector kept = new Vector(entries.size());
+		int n = entries.size();
+		for (int i = 0; i < n; i++) {
+			Entry entry = (Entry) entries.elementAt(i);
+			if (entry.reached < start) {
+				kept.addElement(entry);
+			}
+		}
+		return kept.isEmpty() ? null : kept;
+	}
+	
+	/**
+	 * Forget every recorded result.
+	 */
+	public void clear() {
+		table.clear();
+		active.removeAllElements();
+		hits = 0;
+		misses = 0;
+	}
+	
+	/**
+	 * Adjust this memo to a change in the elements it has seen 
+	 * matched: the elements from <code>start</code> up to 
+	 * <code>end</code> have been replaced by <code>length</code> 
+	 * others. Results that looked at no replaced element are kept, 
+	 * those recorded after the change moving along with the 
+	 * elements they matched; every other result is forgotten. The 
+	 * assemblies the results were recorded on must be on the 
+	 * changed elements themselves, not on a copy of them, and must 
+	 * not defer their assemblers.
+	 * 
+	 * @param   int   the position of the first replaced element
+	 * 
+	 * @param   int   the position just past the last replaced 
+	 *                element
+	 * 
+	 * @param   int   the number of elements that replaced them
+	 */
+	public void edit(int start, int end, int length) {
+		int delta = length - (end - start);
+		Iterator i = table.entrySet().iterator();
+		while (i.hasNext()) {
+			Map.Entry e = (Map.Entry) i.next();
+			Vector[] slots = (Vector[]) e.getValue();
+			Vector[] moved = new Vector[slots.length + delta];
+			for (int p = 0; p < start && p < slots.length; p++) {
+				moved[p] = before(slots[p], start);
+			}
+			for (int p = end; p < slots.length; p++) {
+				moved[p + delta] = shift(slots[p], delta);
+			}
+			e.setValue(moved);
+		}
+	}
+	
+	/*
+	 * Find the list of entries for the given parser at the
+	 * given position, creating it if necessary.
+	 */
+	protected Vector entriesAt(Parser p, Assembly a) {
+		Vector[] slots = (Vector[]) table.get(p);
+		if (slots == null) {
+			slots = new Vector[a.length() + 1];
+			table.put(p, slots);
+		}
+		int i = a.elementsConsumed();
+		if (slots[i] == null) {
+			slots[i] = new Vector(1);
+		}
+		return slots[i];
+	}
+	
+	/*
+	 * Match a left recursive parser again and again, each time 
+	 * with the last results as the seed its recursive calls get, 
+	 * until the results reach no position they did not reach 
+	 * before.
+	 */
+	protected AssemblySet grow(
+		Entry entry, Parser p, Assembly a, AssemblySet out) {
+		
+		while (true) {
+			entry.outputs = out.elementClone();
+			AssemblySet next = matchOnce(entry, p, a);
+			if (!reachesFurther(next, out)) {
+				return next;
+			}
+			out = next;
+		}
+	}
+	
+	/**
+	 * Returns how many times this memo replayed a parser's
+	 * earlier results.
+	 * 
+	 * @return how many times this memo replayed a parser's
+	 *         earlier results
+	 */
+	public int hits() {
+		return hits;
+	}
+	
+	/**
+	 * Match the given parser against each of the given
+	 * assemblies, consulting this memo first. A parser whose
+	 * results are already known for an assembly's position and
+	 * state gets copies of those results, with its assembler's
+	 * work already done, instead of matching again.
+	 * 
+	 * @param Parser the parser to match
+	 * 
+	 * @param AssemblySet a set of assemblies to match against
+	 * 
+	 * @return a set of assemblies that result from matching
+	 *         against a beginning set of assemblies
+	 */
+	public AssemblySet matchAndAssemble(Parser p, AssemblySet in) {
+		if (in.size() == 1) {
+			return results(p, in.get(0));
+		}
+		AssemblySet out = new AssemblySet();
+		int n = in.size();
+		for (int i = 0; i < n; i++) {
+			out.addAll(results(p, in.get(i)));
+		}
+		return out;
+	}
+	
+	/*
+	 * Let a parser match a copy of an assembly for real, noting in 
+	 * the entry how far the match looked. The results go on with 
+	 * the assembly's own record of reach.
+	 */
+	protected AssemblySet matchOnce(Entry entry, Parser p, Assembly a) {
+		Assembly b = (Assembly) a.clone();
+		b.setReachTracking(true);
+		AssemblySet out = p.unmemoizedMatchAndAssemble(new AssemblySet(b));
+		entry.reached = Math.max(entry.reached, b.reach[0]);
+		reached(entry, a, out);
+		return out;
+	}
+	
+	/**
+	 * Returns how many times this memo had to let a parser
+	 * match for real.
+	 * 
+	 * @return how many times this memo had to let a parser
+	 *         match for real
+	 */
+	public int misses() {
+		return misses;
+	}
+	
+	/*
+	 * Carry how far an entry looked over to the record of reach 
+	 * the given assembly shares, and let the results share it.
+	 */
+	protected static void reached(Entry entry, Assembly a, AssemblySet out) {
+		if (a.reach != null && entry.reached > a.reach[0]) {
+			a.reach[0] = entry.reached;
+		}
+		int n = out.size();
+		for (int i = 0; i < n; i++) {
+			out.get(i).reach = a.reach;
+		}
+	}
+	
+	/*
+	 * Returns true if some assembly in the first set has consumed 
+	 * a number of elements no assembly in the second set has.
+	 */
+	protected static boolean reachesFurther(AssemblySet next, AssemblySet out) {
+		BitSet reached = new BitSet();
+		int n = out.size();
+		for (int i = 0; i < n; i++) {
+			reached.set(out.get(i).elementsConsumed());
+		}
+		n = next.size();
+		for (int i = 0; i < n; i++) {
+			if (!reached.get(next.get(i).elementsConsumed())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/*
+	 * Note that the given entry, which is still being worked out, 
+	 * has been asked for again at the same position: it is left 
+	 * recursive. Every entry worked out since it started depends 
+	 * on its unfinished results.
+	 */
+	protected void recursed(Entry head) {
+		head.recursive = true;
+		for (int i = active.size() - 1; i >= 0; i--) {
+			Entry entry = (Entry) active.elementAt(i);
+			if (entry == head) {
+				break;
+			}
+			entry.involved = true;
+		}
+	}
+	
+	/*
+	 * Copy an entry's results for the given assembly, moving any 
+	 * deferred actions the parser added onto the assembly's own 
+	 * trail, and any syntax nodes onto the assembly's own nodes.
+	 */
+	protected AssemblySet replay(Entry entry, Assembly a) {
+		AssemblySet out = entry.outputs.elementClone();
+		ActionTrail from = entry.input.trail;
+		if (from != null && a.trail != null && from != a.trail) {
+			int n = out.size();
+			for (int i = 0; i < n; i++) {
+				Assembly b = out.get(i);
+				b.trail = b.trail.rebase(from, a.trail);
+			}
+		}
+		Assembly input = entry.input;
+		if (a.arena != null && (input.node != a.node || input.frame != a.frame)) {
+			int n = out.size();
+			for (int i = 0; i < n; i++) {
+				Assembly b = out.get(i);
+				b.node = a.arena.rebase(b.node, input.node, a.node);
+				b.frame = a.frame;
+			}
+		}
+		reached(entry, a, out);
+		return out;
+	}
+	
+	/*
+	 * Replay the recorded results for this parser at this
+	 * assembly's state, or match and record them. Assemblies 
+	 * that defer their assemblers match alike whatever they have 
+	 * put off, so a replayed result gets the actions the parser 
+	 * added, on top of the trail of the assembly it replays for.
+	 * 
+	 * A parser that asks for its own results at the position it 
+	 * is working on is left recursive. It gets the results found 
+	 * so far, starting with none, and the parser then matches 
+	 * again with those results as a seed until the results reach 
+	 * no further.
+	 */
+	protected AssemblySet results(Parser p, Assembly a) {
+		Vector entries = entriesAt(p, a);
+		int n = entries.size();
+		for (int i = 0; i < n; i++) {
+			Entry entry = (Entry) entries.elementAt(i);
+			if (entry.input.sameMatchState(a)) {
+				if (entry.inProgress) {
+					recursed(entry);
+				}
+				hits++;
+				return replay(entry, a);
+			}
+		}
+		misses++;
+		Entry entry = new Entry((Assembly) a.clone());
+		entry.outputs = new AssemblySet();
+		entry.inProgress = true;
+		entries.addElement(entry);
+		active.addElement(entry);
+		AssemblySet out = matchOnce(entry, p, a);
+		if (entry.recursive) {
+			out = grow(entry, p, a, out);
+		}
+		active.removeElementAt(active.size() - 1);
+		entry.inProgress = false;
+		if (entry.involved) {
+			entries.removeElement(entry);
+		} else {
+			entry.outputs = out.elementClone();
+		}
+		return out;
+	}
+	
+	/*
+	 * Move the entries in the given list, and their results, the 
+	 * given number of positions along.
+	 */
+	protected static Vector shift(Vector entries, int delta) {
+		if (entries == null || delta == 0) {
+			return entries;
+		}
+		int n = entries.size();
+		for (int i = 0; i < n; i++) {
+			Entry entry = (Entry) entries.elementAt(i);
+			entry.input.index += delta;
+			entry.reached += delta;
+			int m = entry.outputs.size();
+			for (int j = 0; j < m; j++) {
+				entry.outputs.get(j).index += delta;
+			}
+		}
+		return entries;
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * @(#)ParallelAlternation.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ParallelAlternation extends Alternation {
+	
+	/**
+	 * the estimated work below which an alternation matches its 
+	 * subparsers one after another
+	 */
+	public static final int DEFAULT_THRESHOLD = 1000;
+	
+	/*
+	 * the pool that alternations without a pool of their own share
+	 */
+	protected static ForkJoinPool sharedPool;
+	
+	/*
+	 * the pool to run subparsers in, or null for the shared pool
+	 */
+	protected ForkJoinPool pool;
+	
+	/*
+	 * the estimated work at which this alternation starts to 
+	 * match its subparsers in parallel
+	 */
+	protected int threshold = DEFAULT_THRESHOLD;
+	
+	/*
+	 * Matches one subparser against its own copy of the input, 
+	 * with its own record of reach if the input tracks reach.
+	 */
+	protected static class Branch extends RecursiveTask {
+		private static final long serialVersionUID = 1L;
+		
+		protected Parser parser;
+		protected AssemblySet in;
+		protected int[] reach;
+		
+		protected Branch(Parser parser, AssemblySet in, int[] reach) {
+			this.parser = parser;
+			this.in = in;
+			this.reach = reach;
+		}
+		
+		protected Object compute() {
+			return parser.matchAndAssemble(in);
+		}
+	}
+	
+	/*
+	 * Forks a task per subparser and joins them in order.
+	 */
+	protected static class Fork extends RecursiveTask {
+		private static final long serialVersionUID = 1L;
+		
+		protected Branch[] branches;
+		
+		protected Fork(Branch[] branches) {
+			this.branches = branches;
+		}
+		
+		protected Object compute() {
+			invokeAll(branches);
+			AssemblySet out = new AssemblySet();
+			for (int i = 0; i < branches.length; i++) {
+				out.addAll((AssemblySet) branches[i].join());
+			}
+			return out;
+		}
+	}
+	
+	/**
+	 * Constructs a nameless parallel alternation.
+	 */
+	public ParallelAlternation() {
+	}
+	
+	/**
+	 * Constructs a parallel alternation with the given name.
+	 * 
+	 * @param name
+	 *            a name to be known by
+	 */
+	public ParallelAlternation(String name) {
+		super(name);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parser.
+	 */
+	public ParallelAlternation(Parser p) {
+		super(p);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parsers.
+	 */
+	public ParallelAlternation(Parser p1, Parser p2) {
+		super(p1, p2);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parsers.
+	 */
+	public ParallelAlternation(Parser p1, Parser p2, Parser p3) {
+		super(p1, p2, p3);
+	}
+	
+	/**
+	 * A convenient way to construct a CollectionParser with the given parsers.
+	 */
+	public ParallelAlternation(Parser p1, Parser p2, Parser p3, Parser p4) {
+		super(p1, p2, p3, p4);
+	}
+	
+	/*
+	 * Returns the inputs for each subparser: a copy of the whole 
+	 * set, or with lookahead, a copy of the assemblies that the 
+	 * subparser might match. Each subparser's copies share a 
+	 * record of reach, if the assemblies track reach, that no 
+	 * other subparser's copies share.
+	 */
+	protected AssemblySet[] branchInputs(AssemblySet in) {
+		int n = subparsers.size();
+		int m = in.size();
+		int[][] c = new int[m][];
+		for (int i = 0; i < m; i++) {
+			c[i] = candidates(in.get(i));
+		}
+		AssemblySet[] inputs = new AssemblySet[n];
+		int[] reach = in.get(0).reach;
+		for (int j = 0; j < n; j++) {
+			AssemblySet some = new AssemblySet(m);
+			int[] r = reach == null ? null : new int[] {reach[0]};
+			for (int i = 0; i < m; i++) {
+				if (c[i] == null || Arrays.binarySearch(c[i], j) >= 0) {
+					Assembly b = (Assembly) in.get(i).clone();
+					b.reach = r;
+					some.add(b);
+				}
+			}
+			inputs[j] = some;
+		}
+		return inputs;
+	}
+	
+	/**
+	 * Returns an estimate of the work of matching this 
+	 * alternation against the given assemblies: the number of 
+	 * subparsers times the elements remaining in all of the 
+	 * assemblies.
+	 * 
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
+	 * 
+	 * @return an estimate of the work to match
+	 */
+	protected long estimate(AssemblySet in) {
+		long remaining = 0;
+		int m = in.size();
+		for (int i = 0; i < m; i++) {
+			remaining += in.get(i).elementsRemaining();
+		}
+		return remaining * subparsers.size();
+	}
+	
+	/**
+	 * Returns the pool this alternation runs its subparsers in.
+	 * 
+	 * @return the pool this alternation runs its subparsers in
+	 */
+	public ForkJoinPool getPool() {
+		if (pool != null) {
+			return pool;
+		}
+		synchronized (ParallelAlternation.class) {
+			if (sharedPool == null) {
+				sharedPool = new ForkJoinPool();
+			}
+			return sharedPool;
+		}
+	}
+	
+	/**
+	 * Given a set of assemblies, this method matches each of this 
+	 * alternation's subparsers against its own copy of them, in 
+	 * parallel when the estimated work reaches this alternation's 
+	 * threshold, and returns the results in subparser order, as an 
+	 * <code>Alternation</code> would.
+	 * <p>
+	 * Assemblies that carry a memo, a beam or a syntax arena match 
+	 * one subparser after another, since none of these is safe to 
+	 * share between threads. The assemblers of the subparsers must 
+	 * be. Each subparser records how far it reaches on its own, 
+	 * and the furthest of these becomes the reach of the results.
+	 * 
+	 * @return a set of assemblies that result from matching against a
+	 *         beginning set of assemblies
+	 * 
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
+	 * 
+	 */
+	public AssemblySet match(AssemblySet in) {
+		int n = subparsers.size();
+		if (n < 2 || in.isEmpty() || estimate(in) < threshold) {
+			return super.match(in);
+		}
+		Assembly a = in.get(0);
+		if (a.getMemo() != null || a.getBeam() != null 
+			|| a.getArena() != null) {
+			
+			return super.match(in);
+		}
+		AssemblySet[] inputs = branchInputs(in);
+		Vector branches = new Vector();
+		for (int j = 0; j < n; j++) {
+			if (!inputs[j].isEmpty()) {
+				branches.addElement(new Branch(
+					(Parser) subparsers.elementAt(j), inputs[j], 
+					inputs[j].get(0).reach));
+			}
+		}
+		Branch[] b = (Branch[]) branches.toArray(new Branch[branches.size()]);
+		Fork fork = new Fork(b);
+		AssemblySet out;
+		if (ForkJoinTask.inForkJoinPool()) {
+			out = (AssemblySet) fork.invoke();
+		} else {
+			out = (AssemblySet) getPool().invoke(fork);
+		}
+		if (a.reach != null) {
+			for (int j = 0; j < b.length; j++) {
+				a.reach[0] = Math.max(a.reach[0], b[j].reach[0]);
+			}
+			int m = out.size();
+			for (int i = 0; i < m; i++) {
+				out.get(i).reach = a.reach;
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Sets the pool this alternation runs its subparsers in.
+	 * 
+	 * @param ForkJoinPool
+	 *            the pool to use, or null to share one pool with 
+	 *            other parallel alternations
+	 * 
+	 * @return Parser this
+	 */
+	public Parser setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+	
+	/**
+	 * Sets the estimated work at which this alternation starts to 
+	 * match its subparsers in parallel. The estimate is the number 
+	 * of subparsers times the elements remaining in the assemblies 
+	 * to match.
+	 * 
+	 * @param int
+	 *            the work at which to go parallel
+	 * 
+	 * @return Parser this
+	 */
+	public Parser setThreshold(int threshold) {
+		this.threshold = threshold;
+		return this;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * @(#)ParseError.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class ParseError {
+	
+	/*
+	 * the position of the first element of the unit that failed
+	 */
+	protected int start;
+	
+	/*
+	 * the position of the first element no match got past
+	 */
+	protected int reached;
+	
+	/*
+	 * the position where parsing resumed, after the skipped 
+	 * elements
+	 */
+	protected int end;
+	
+	/*
+	 * the elements skipped
+	 */
+	protected Vector skipped;
+	
+	/**
+	 * Constructs a record of elements skipped after a unit failed 
+	 * to match.
+	 * 
+	 * @param int the position of the first element of the unit
+	 * 
+	 * @param int the position of the first element no match got 
+	 *        past
+	 * 
+	 * @param int the position where parsing resumed
+	 * 
+	 * @param Vector the elements skipped
+	 */
+	public ParseError(int start, int reached, int end, Vector skipped) {
+		this.start = start;
+		this.reached = reached;
+		this.end = end;
+		this.skipped = skipped;
+	}
+	
+	/**
+	 * Returns the position after the last element skipped.
+	 * 
+	 * @return the position where parsing resumed
+	 */
+	public int getEnd() {
+		return end;
+	}
+	
+	/**
+	 * Returns the position of the first element no match got 
+	 * past, which is usually the element in error.
+	 * 
+	 * @return the position where matching stopped
+	 */
+	public int getReached() {
+		return reached;
+	}
+	
+	/**
+	 * Returns the elements skipped, in order.
+	 * 
+	 * @return a vector of the elements skipped
+	 */
+	public Vector getSkipped() {
+		return skipped;
+	}
+	
+	/**
+	 * Returns the position of the first element skipped.
+	 * 
+	 * @return the position of the first element skipped
+	 */
+	public int getStart() {
+		return start;
+	}
+	
+	/**
+	 * Returns a textual description of this error.
+	 * 
+	 * @return a textual description of this error
+	 */
+	public String toString() {
+		StringBuffer buf = new StringBuffer();
+		buf.append("skipped ").append(start).append(" to ").append(end);
+		buf.append(" (stopped at ").append(reached).append("):");
+		int n = skipped.size();
+		for (int i = 0; i < n; i++) {
+			buf.append(' ').append(skipped.elementAt(i));
+		}
+		return buf.toString();
+	}
+}
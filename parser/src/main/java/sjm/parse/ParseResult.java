@@ -0,0 +1,136 @@
+/*
+ * @(#)ParseResult.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+public class ParseResult {
+	
+	/*
+	 * the position of the record among the inputs
+	 */
+	protected int index;
+	
+	/*
+	 * the text of the record
+	 */
+	protected String input;
+	
+	/*
+	 * the best match of the record, if matching finished
+	 */
+	protected Assembly assembly;
+	
+	/*
+	 * what went wrong, if matching did not finish
+	 */
+	protected Throwable error;
+	
+	/**
+	 * Constructs the result of parsing one record.
+	 * 
+	 * @param int the position of the record among the inputs
+	 * 
+	 * @param String the text of the record
+	 * 
+	 * @param Assembly the best match of the record, or null
+	 * 
+	 * @param Throwable what went wrong, or null
+	 */
+	public ParseResult(
+		int index, String input, Assembly assembly, Throwable error) {
+		
+		this.index = index;
+		this.input = input;
+		this.assembly = assembly;
+		this.error = error;
+	}
+	
+	/**
+	 * Returns the best match of the record, or null if there was 
+	 * none or matching threw an exception.
+	 * 
+	 * @return the best match of the record
+	 */
+	public Assembly getAssembly() {
+		return assembly;
+	}
+	
+	/**
+	 * Returns the exception matching threw, or null.
+	 * 
+	 * @return the exception matching threw, or null
+	 */
+	public Throwable getError() {
+		return error;
+	}
+	
+	/**
+	 * Returns the position of the record among the inputs.
+	 * 
+	 * @return the position of the record among the inputs
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Returns the text of the record.
+	 * 
+	 * @return the text of the record
+	 */
+	public String getInput() {
+		return input;
+	}
+	
+	/**
+	 * Returns the target of the best match, or null if there was 
+	 * no match.
+	 * 
+	 * @return the target of the best match
+	 */
+	public Object getTarget() {
+		return assembly == null ? null : assembly.getTarget();
+	}
+	
+	/**
+	 * Returns true if the parser matched the whole record.
+	 * 
+	 * @return true, if the parser matched the whole record
+	 */
+	public boolean succeeded() {
+		return assembly != null && !assembly.hasMoreElements();
+	}
+	
+	/**
+	 * Returns a textual description of this result.
+	 * 
+	 * @return a textual description of this result
+	 */
+	public String toString() {
+		if (error != null) {
+			return index + ": " + error;
+		}
+		if (!succeeded()) {
+			return index + ": no complete match: " + assembly;
+		}
+		return index + ": " + assembly;
+	}
+}
@@ -36,6 +36,24 @@ public abstract class Parser {
 	 */
 	protected Assembler assembler;
 	
+	/**
+	 * whether this parser collapses the assemblies it produces 
+	 * that have the same position, stack and target
+	 */
+	protected boolean deduplicate = false;
+	
+	/**
+	 * the fewest elements this parser consumes when it matches; 
+	 * it skips assemblies with fewer left
+	 */
+	protected int minLength = 0;
+	
+	/**
+	 * the figures this parser adds to while profiling is on, or 
+	 * null if no profiler has instrumented it
+	 */
+	protected ParserStats stats;
+	
 	/**
 	 * Constructs a nameless parser.
 	 */
@@ -88,18 +106,35 @@ public abstract class Parser {
 		}
 	}
 
+	/**
+	 * Returns either null, or some completely matched version of 
+	 * the supplied assembly. Where several matches consume every 
+	 * element, this method may return any of them, which lets a 
+	 * parser stop at the first it finds. Only compiled parsers do 
+	 * stop early; this implementation returns what 
+	 * <code>completeMatch()</code> returns.
+	 * 
+	 * @return either null, or a completely matched version of the 
+	 * supplied assembly
+	 * 
+	 * @param Assembly an assembly to match against
+	 */
+	public Assembly anyCompleteMatch(Assembly a) {
+		return completeMatch(a);
+	}
+	
 	/**
 	 * Returns the most-matched assembly in a collection
 	 * 
 	 * @return the most-matched assembly in a collection
 	 * 
-	 * @param Vector the collection to look through
+	 * @param AssemblySet the collection to look through
 	 */
-	public Assembly best(Vector v) {
+	public Assembly best(AssemblySet s) {
 		Assembly best = null;
-		Enumeration e = v.elements();
-		while (e.hasMoreElements()) {
-			Assembly a = (Assembly) e.nextElement();
+		int n = s.size();
+		for (int i = 0; i < n; i++) {
+			Assembly a = s.get(i);
 			if (!a.hasMoreElements()) {
 				return a;
 			}
@@ -114,9 +149,22 @@ public abstract class Parser {
 		return best;
 	}
 	
+	/**
+	 * Returns the most-matched assembly in a collection
+	 * 
+	 * @return the most-matched assembly in a collection
+	 * 
+	 * @param Vector the collection to look through
+	 */
+	public Assembly best(Vector v) {
+		return best(new AssemblySet(v));
+	}
+	
 	/**
 	 * Returns an assembly with the greatest possible number of
-	 * elements consumed by matches of this parser
+	 * elements consumed by matches of this parser. If the 
+	 * assembly defers its assemblers, only the returned assembly 
+	 * has its deferred actions replayed.
 	 * 
 	 * @return an assembly with the greatest possible number of
 	 * elements consumed by this parser
@@ -124,10 +172,31 @@ public abstract class Parser {
 	 * @param Assembly an assembly to match against
 	 */
 	public Assembly bestMatch(Assembly a) {
-		Vector in = new Vector();
-		in.addElement(a);
-		Vector out = matchAndAssemble(in);
-		return best(out);
+		AssemblySet out = matchAndAssemble(new AssemblySet(a));
+		Assembly best = best(out);
+		if (best != null) {
+			best.replay();
+		}
+		return best;
+	}
+	
+	/**
+	 * Returns an assembly with the greatest possible number of
+	 * elements consumed by matches of this parser, when every 
+	 * parser passes on no more assemblies than the given beam 
+	 * allows. The beam records how many assemblies it pruned.
+	 * 
+	 * @return an assembly with the greatest number of elements 
+	 * consumed by this parser within the beam
+	 * 
+	 * @param Assembly an assembly to match against
+	 * 
+	 * @param Beam the beam to prune by
+	 */
+	public Assembly bestMatch(Assembly a, Beam beam) {
+		Assembly b = (Assembly) a.clone();
+		b.setBeam(beam);
+		return bestMatch(b);
 	}
 	
 	/** Returns either null, or a completely matched version of 
@@ -146,6 +215,25 @@ public abstract class Parser {
 		return null;
 	}
 	
+	/** Returns either null, or a completely matched version of 
+	 * the supplied assembly found within the given beam. A null 
+	 * result may mean the beam pruned every complete match.
+	 * 
+	 * @return either null, or a completely matched version of the 
+	 * supplied assembly
+	 * 
+	 * @param Assembly an assembly to match against
+	 * 
+	 * @param Beam the beam to prune by
+	 */
+	public Assembly completeMatch(Assembly a, Beam beam) {
+		Assembly best = bestMatch(a, beam);
+		if (best != null && !best.hasMoreElements()) {
+			return best;
+		}
+		return null;
+	}
+	
 	/**
 	 * Create a copy of a vector, cloning each element of the vector
 	 * 
@@ -164,6 +252,26 @@ public abstract class Parser {
 		return copy;
 	}
 	
+	/**
+	 * Returns the object that works on an assembly whenever this 
+	 * parser matches it, or null if there is none.
+	 * 
+	 * @return the assembler of this parser, or null
+	 */
+	public Assembler getAssembler() {
+		return assembler;
+	}
+	
+	/**
+	 * Returns the fewest elements this parser consumes when it 
+	 * matches.
+	 * 
+	 * @return the fewest elements this parser consumes
+	 */
+	public int getMinLength() {
+		return minLength;
+	}
+	
 	/**
 	 * Returns the name of this parser
 	 * 
@@ -173,6 +281,16 @@ public abstract class Parser {
 		return this.name;
 	}
 	
+	/**
+	 * Returns true if this parser keeps only one of each group of 
+	 * result assemblies that are in the same state.
+	 * 
+	 * @return true, if this parser drops duplicate results
+	 */
+	public boolean isDeduplicate() {
+		return deduplicate;
+	}
+	
 	/**
 	 * Given a set (well, a <code>Vector</code>, really) of 
 	 * assemblies, this method matches this parser against
@@ -187,13 +305,65 @@ public abstract class Parser {
 	 * <code>a*</code> matches against this initial state, it 
 	 * creates a new set <code>{^aaab, a^aab, aa^ab, aaa^b}</code>.
 	 * 
+	 * Subclasses must override either this method or 
+	 * <code>match(AssemblySet)</code>; each one is written in 
+	 * terms of the other.
+	 * 
 	 * @return a Vector of assemblies that result from 
 	 * matching against a beginning set of assemblies
 	 * 
 	 * @param Vector a vector of assemblies to match against
 	 * 
 	 */
-	public abstract Vector match(Vector in);
+	public Vector match(Vector in) {
+		return match(new AssemblySet(in)).toVector();
+	}
+	
+	/**
+	 * Given a set of assemblies, this method matches this parser 
+	 * against all of them, and returns a new set of the 
+	 * assemblies that result from the matches. This is the same 
+	 * as <code>match(Vector)</code>, but it passes assemblies in 
+	 * an <code>AssemblySet</code>, which does no locking.
+	 * 
+	 * @return a set of assemblies that result from matching 
+	 * against a beginning set of assemblies
+	 * 
+	 * @param AssemblySet a set of assemblies to match against
+	 */
+	public AssemblySet match(AssemblySet in) {
+		return new AssemblySet(match(in.toVector()));
+	}
+	
+	/**
+	 * Match this parser against an input state, and then 
+	 * apply this parser's assembler against the resulting
+	 * state.
+	 * <p>
+	 * If the assemblies carry a <code>PackratMemo</code>, the
+	 * memo answers for this parser at each assembly's position,
+	 * replaying earlier results instead of matching again. If 
+	 * they carry a <code>Beam</code>, only the assemblies the 
+	 * beam ranks highest are returned. Assemblies with fewer 
+	 * elements left than this parser's minimum length are skipped.
+	 * 
+	 * @return a set of assemblies that result from matching
+	 * against a beginning set of assemblies
+	 * 
+	 * @param AssemblySet a set of assemblies to match against
+	 */
+	public AssemblySet matchAndAssemble(AssemblySet in) {
+		ParserStats s = stats;
+		if (s == null || !ParserProfiler.enabled) {
+			return unprofiledMatchAndAssemble(in);
+		}
+		long clones = ParserProfiler.clones();
+		long start = System.nanoTime();
+		AssemblySet out = unprofiledMatchAndAssemble(in);
+		s.record(in.size(), out.size(), 
+			ParserProfiler.clones() - clones, System.nanoTime() - start);
+		return out;
+	}
 	
 	/**
 	 * Match this parser against an input state, and then 
@@ -206,14 +376,7 @@ public abstract class Parser {
 	 * @param Vector a vector of assemblies to match against
 	 */
 	public Vector matchAndAssemble(Vector in) {
-		Vector out = match(in);
-		if (assembler != null) {
-			Enumeration e = out.elements();
-			while (e.hasMoreElements()) {
-				assembler.workOn((Assembly) e.nextElement());
-			}
-		}
-		return out;
+		return matchAndAssemble(new AssemblySet(in)).toVector();
 	}
 	
 	/** 
@@ -243,6 +406,23 @@ public abstract class Parser {
 		return buf.toString();
 	}
 	
+	/**
+	 * Sets whether this parser keeps only one of each group of 
+	 * result assemblies that are at the same position with equal 
+	 * stacks and targets. Ambiguous alternations and repetitions 
+	 * can produce many such duplicates, and every parser that 
+	 * follows would otherwise match each of them again.
+	 * 
+	 * @param boolean true, if this parser should drop duplicate 
+	 * results
+	 * 
+	 * @return Parser this
+	 */
+	public Parser setDeduplicate(boolean deduplicate) {
+		this.deduplicate = deduplicate;
+		return this;
+	}
+	
 	/**
 	 * Sets the object that will work on an assembly whenever
 	 * this parser successfully matches against the assembly.
@@ -256,6 +436,22 @@ public abstract class Parser {
 		return this;
 	}
 	
+	/**
+	 * Sets the fewest elements this parser consumes when it 
+	 * matches, so that it skips assemblies with fewer elements 
+	 * left. <code>GrammarAnalyzer.annotate()</code> sets this for 
+	 * every parser in a grammar. A length larger than the parser 
+	 * really needs makes it miss matches.
+	 * 
+	 * @param int the fewest elements this parser consumes
+	 * 
+	 * @return Parser this
+	 */
+	public Parser setMinLength(int minLength) {
+		this.minLength = minLength;
+		return this;
+	}
+	
 	/**
 	 * Returns a textual description of this parser.
 	 * 
@@ -292,6 +488,63 @@ public abstract class Parser {
 		}
 	}
 	
+	/**
+	 * Match this parser against an input state, and then apply
+	 * this parser's assembler against the resulting state,
+	 * without consulting a memo.
+	 * 
+	 * @return a set of assemblies that result from matching
+	 * against a beginning set of assemblies
+	 * 
+	 * @param AssemblySet a set of assemblies to match against
+	 */
+	protected AssemblySet unmemoizedMatchAndAssemble(AssemblySet in) {
+		AssemblySet out = match(in);
+		if (assembler != null) {
+			int n = out.size();
+			for (int i = 0; i < n; i++) {
+				out.get(i).assemble(assembler);
+			}
+		}
+		if (deduplicate) {
+			out = out.distinct();
+		}
+		return out;
+	}
+	
+	/**
+	 * Match this parser against an input state, and then apply
+	 * this parser's assembler against the resulting state, 
+	 * without recording figures for a profiler.
+	 * 
+	 * @return a set of assemblies that result from matching
+	 * against a beginning set of assemblies
+	 * 
+	 * @param AssemblySet a set of assemblies to match against
+	 */
+	protected AssemblySet unprofiledMatchAndAssemble(AssemblySet in) {
+		if (minLength > 0) {
+			in = in.withRemaining(minLength);
+		}
+		if (in.isEmpty()) {
+			return unmemoizedMatchAndAssemble(in);
+		}
+		Assembly a = in.get(0);
+		SyntaxArena arena = name != null ? a.getArena() : null;
+		if (arena != null) {
+			in = arena.open(in);
+		}
+		PackratMemo memo = a.getMemo();
+		AssemblySet out = memo != null 
+			? memo.matchAndAssemble(this, in) 
+			: unmemoizedMatchAndAssemble(in);
+		if (arena != null) {
+			arena.close(this, out);
+		}
+		Beam beam = a.getBeam();
+		return beam != null ? beam.prune(out) : out;
+	}
+	
 	/**
 	 * Returns a textual description of this string.
 	 */
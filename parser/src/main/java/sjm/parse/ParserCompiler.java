@@ -0,0 +1,396 @@
+/*
+ * @(#)ParserCompiler.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class ParserCompiler extends ParserVisitor {
+	
+	/*
+	 * the instructions compiled so far
+	 */
+	protected int[] code = new int[64];
+	
+	/*
+	 * how many slots of the code array are in use
+	 */
+	protected int size;
+	
+	/*
+	 * the objects that operands refer to, and their positions
+	 */
+	protected Vector pool = new Vector();
+	protected IdentityHashMap poolIndex = new IdentityHashMap();
+	
+	/*
+	 * for each parser, how many places refer to it
+	 */
+	protected IdentityHashMap references = new IdentityHashMap();
+	
+	/*
+	 * for each parser compiled as a subroutine, its label
+	 */
+	protected IdentityHashMap labels = new IdentityHashMap();
+	
+	/*
+	 * subroutines that are called but not yet compiled
+	 */
+	protected Vector pending = new Vector();
+	
+	/*
+	 * parsers that call themselves without consuming anything
+	 */
+	protected IdentityHashMap leftRecursive = new IdentityHashMap();
+	
+	/*
+	 * true while counting references, false while emitting code
+	 */
+	protected boolean counting;
+	
+	/*
+	 * The address of a subroutine, and the CALLs waiting to learn 
+	 * it.
+	 */
+	protected static class Label {
+		protected int address = -1;
+		protected Vector fixups = new Vector();
+	}
+	
+	/*
+	 * Apply a parser's assembler, if it has one.
+	 */
+	protected void assemble(Parser p) {
+		if (p.assembler != null) {
+			emit(CompiledParser.ASSEMBLE, intern(p.assembler));
+		}
+	}
+	
+	/**
+	 * Compiles the given parser and every parser it reaches into 
+	 * the instructions of a <code>CompiledParser</code>.
+	 * <p>
+	 * Sequences, alternations, repetitions, empty parsers and 
+	 * terminals compile into instructions. Any other kind of 
+	 * parser, including subclasses of those that change how they 
+	 * match and parsers that deduplicate their results, compiles 
+	 * into a DELEGATE instruction that hands the assembly to the 
+	 * parser itself. So does a left recursive parser, which as a 
+	 * loop of instructions would call itself forever; delegated, 
+	 * it matches as it would uncompiled, growing its results if 
+	 * the assembly carries a <code>PackratMemo</code>. A parser 
+	 * that more than one place refers to, which includes every 
+	 * parser on a cycle, compiles once as a subroutine.
+	 * <p>
+	 * The compiled parser refers to the same terminals and 
+	 * assemblers as the given one, but it does not see changes 
+	 * made to the grammar after it is compiled.
+	 * 
+	 * @param Parser the parser to compile
+	 * 
+	 * @return a compiled parser that matches as the given one does
+	 * 
+	 * @exception IllegalArgumentException if a repetition in the 
+	 *            grammar would match forever
+	 */
+	public static CompiledParser compile(Parser start) {
+		return new ParserCompiler().compileParser(start);
+	}
+	
+	/*
+	 * Compile the given parser; a compiler is good for one parser.
+	 */
+	protected CompiledParser compileParser(Parser start) {
+		GrammarAnalyzer analyzer = new GrammarAnalyzer(start);
+		analyzer.checkRepetitions();
+		Vector left = analyzer.leftRecursive();
+		for (int i = 0; i < left.size(); i++) {
+			leftRecursive.put(left.elementAt(i), Boolean.TRUE);
+		}
+		counting = true;
+		count(start);
+		counting = false;
+		emitParser(start);
+		emit(CompiledParser.ACCEPT, 0);
+		while (!pending.isEmpty()) {
+			Parser p = (Parser) pending.remove(0);
+			Label label = (Label) labels.get(p);
+			label.address = size;
+			emitBody(p);
+			emit(CompiledParser.RET, 0);
+		}
+		Iterator e = labels.values().iterator();
+		while (e.hasNext()) {
+			Label label = (Label) e.next();
+			int n = label.fixups.size();
+			for (int i = 0; i < n; i++) {
+				patch(((Integer) label.fixups.elementAt(i)).intValue(), label.address);
+			}
+		}
+		int[] c = new int[size];
+		System.arraycopy(code, 0, c, 0, size);
+		return new CompiledParser(start, c, pool.toArray());
+	}
+	
+	/*
+	 * Returns true if this compiler knows exactly how the given 
+	 * parser matches.
+	 */
+	protected boolean compilable(Parser p) {
+		if (p.deduplicate || leftRecursive.containsKey(p) 
+			|| overrides(p, Parser.class, "matchAndAssemble", AssemblySet.class) 
+			|| overrides(p, Parser.class, "unmemoizedMatchAndAssemble", AssemblySet.class)) {
+			
+			return false;
+		}
+		if (p instanceof Terminal) {
+			return !overrides(p, Terminal.class, "match", AssemblySet.class);
+		}
+		Class c = p.getClass();
+		return c == Sequence.class || c == TerminalRun.class 
+			|| c == Alternation.class 
+			|| c == Repetition.class || c == Empty.class;
+	}
+	
+	/*
+	 * Count a reference to a parser, and on the first one, count 
+	 * the references it makes.
+	 */
+	protected void count(Parser p) {
+		int[] n = (int[]) references.get(p);
+		if (n != null) {
+			n[0]++;
+			return;
+		}
+		references.put(p, new int[] {1});
+		if (compilable(p)) {
+			p.accept(this, null);
+		}
+	}
+	
+	/*
+	 * Append an instruction, returning its address.
+	 */
+	protected int emit(int opcode, int operand) {
+		if (size + CompiledParser.WIDTH > code.length) {
+			int[] bigger = new int[code.length * 2];
+			System.arraycopy(code, 0, bigger, 0, size);
+			code = bigger;
+		}
+		int address = size;
+		code[size++] = opcode;
+		code[size++] = operand;
+		return address;
+	}
+	
+	/*
+	 * Emit the instructions that match a parser in place.
+	 */
+	protected void emitBody(Parser p) {
+		if (compilable(p)) {
+			p.accept(this, null);
+		} else {
+			emit(CompiledParser.DELEGATE, intern(p));
+		}
+	}
+	
+	/*
+	 * Emit the instructions that match a parser wherever it is 
+	 * referred to: a call, if the parser is a shared subroutine, 
+	 * or else its body.
+	 */
+	protected void emitParser(Parser p) {
+		if (p instanceof Terminal || !compilable(p) 
+			|| ((int[]) references.get(p))[0] < 2) {
+			
+			emitBody(p);
+			return;
+		}
+		Label label = (Label) labels.get(p);
+		if (label == null) {
+			label = new Label();
+			labels.put(p, label);
+			pending.addElement(p);
+		}
+		label.fixups.addElement(new Integer(emit(CompiledParser.CALL, -1)));
+	}
+	
+	/*
+	 * Returns the pool position of the given object, adding it if 
+	 * necessary.
+	 */
+	protected int intern(Object o) {
+		Integer i = (Integer) poolIndex.get(o);
+		if (i == null) {
+			i = new Integer(pool.size());
+			pool.addElement(o);
+			poolIndex.put(o, i);
+		}
+		return i.intValue();
+	}
+	
+	/*
+	 * Returns true if a class between the given parser's class and 
+	 * the base class declares the named method.
+	 */
+	protected static boolean overrides(
+		Parser p, Class base, String name, Class param) {
+		
+		for (Class c = p.getClass(); c != base; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod(name, new Class[] {param});
+				return true;
+			} catch (NoSuchMethodException e) {
+			}
+		}
+		return false;
+	}
+	
+	/*
+	 * Set the operand of the instruction at the given address.
+	 */
+	protected void patch(int address, int operand) {
+		code[address + 1] = operand;
+	}
+	
+	/**
+	 * Compile an alternation: each subparser but the last forks a 
+	 * thread for the rest, and all of them meet at the end. Each 
+	 * notes which alternative it was, so that results come out in 
+	 * the order of the alternatives.
+	 * 
+	 * @param Alternation the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitAlternation(Alternation a, Vector visited) {
+		Vector subs = a.getSubparsers();
+		int n = subs.size();
+		if (counting) {
+			for (int i = 0; i < n; i++) {
+				count((Parser) subs.elementAt(i));
+			}
+			return;
+		}
+		if (n == 0) {
+			emit(CompiledParser.FAIL, 0);
+			return;
+		}
+		int[] jumps = new int[n - 1];
+		for (int i = 0; i < n - 1; i++) {
+			int fork = emit(CompiledParser.FORK, -1);
+			emitParser((Parser) subs.elementAt(i));
+			emit(CompiledParser.CHOICE, i);
+			jumps[i] = emit(CompiledParser.JUMP, -1);
+			patch(fork, size);
+		}
+		emitParser((Parser) subs.elementAt(n - 1));
+		if (n > 1) {
+			emit(CompiledParser.CHOICE, n - 1);
+		}
+		for (int i = 0; i < jumps.length; i++) {
+			patch(jumps[i], size);
+		}
+		assemble(a);
+	}
+	
+	/**
+	 * Compile an empty parser, which only applies its assembler.
+	 * 
+	 * @param Empty the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitEmpty(Empty e, Vector visited) {
+		if (!counting) {
+			assemble(e);
+		}
+	}
+	
+	/**
+	 * Compile a repetition as a loop that, each time around, forks 
+	 * a thread to match the subparser once more and itself leaves 
+	 * the loop. Threads count the times around, so that results 
+	 * come out in the order of that count.
+	 * 
+	 * @param Repetition the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitRepetition(Repetition r, Vector visited) {
+		if (counting) {
+			count(r.getSubparser());
+			return;
+		}
+		if (r.preAssembler != null) {
+			emit(CompiledParser.ASSEMBLE, intern(r.preAssembler));
+		}
+		emit(CompiledParser.OPEN, 0);
+		int fork = emit(CompiledParser.FORK, -1);
+		int exit = emit(CompiledParser.JUMP, -1);
+		patch(fork, size);
+		emitParser(r.getSubparser());
+		emit(CompiledParser.COUNT, 0);
+		emit(CompiledParser.JUMP, fork);
+		patch(exit, size);
+		emit(CompiledParser.CLOSE, 0);
+		assemble(r);
+	}
+	
+	/**
+	 * Compile a sequence as its subparsers, one after another.
+	 * 
+	 * @param Sequence the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitSequence(Sequence s, Vector visited) {
+		Vector subs = s.getSubparsers();
+		int n = subs.size();
+		for (int i = 0; i < n; i++) {
+			if (counting) {
+				count((Parser) subs.elementAt(i));
+			} else {
+				emitParser((Parser) subs.elementAt(i));
+			}
+		}
+		if (!counting) {
+			assemble(s);
+		}
+	}
+	
+	/**
+	 * Compile a terminal as a SCAN, or as a MATCH if the terminal 
+	 * has its own way of matching one assembly.
+	 * 
+	 * @param Terminal the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitTerminal(Terminal t, Vector visited) {
+		if (counting) {
+			return;
+		}
+		boolean own = overrides(t, Terminal.class, "matchOneAssembly", Assembly.class);
+		emit(own ? CompiledParser.MATCH : CompiledParser.SCAN, intern(t));
+		assemble(t);
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * @(#)ParserOptimizer.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class ParserOptimizer extends ParserVisitor {
+	
+	/*
+	 * what a round of visiting does
+	 */
+	protected static final int SIMPLIFY = 0;
+	protected static final int RESOLVE = 1;
+	
+	/*
+	 * the analysis of the grammar being optimized, which also 
+	 * lists its parsers
+	 */
+	protected GrammarAnalyzer analyzer;
+	
+	/*
+	 * for each parser that is no longer needed, the parser that 
+	 * takes its place
+	 */
+	protected IdentityHashMap replacements = new IdentityHashMap();
+	
+	/*
+	 * the terminals this optimizer made by uniting branches
+	 */
+	protected IdentityHashMap unions = new IdentityHashMap();
+	
+	/*
+	 * what the current round of visiting does
+	 */
+	protected int phase;
+	
+	/*
+	 * Returns true if nothing but its structure depends on the 
+	 * given parser, so that its parent may take its subparsers, or 
+	 * a lone subparser may take its place.
+	 */
+	protected static boolean dissolvable(Parser p) {
+		return p.name == null && p.assembler == null && !p.deduplicate;
+	}
+	
+	/*
+	 * Remove the empty parsers from a sequence's subparsers. Each 
+	 * one hands on copies of its assemblies, so they go only if a 
+	 * terminal, which also copies them, is left.
+	 */
+	protected static void dropEmpties(Vector subs) {
+		boolean copies = false;
+		for (int i = 0; i < subs.size(); i++) {
+			copies |= subs.elementAt(i) instanceof Terminal;
+		}
+		if (!copies) {
+			return;
+		}
+		for (int i = subs.size() - 1; i >= 0; i--) {
+			Parser sub = (Parser) subs.elementAt(i);
+			if (exactly(sub, Empty.class) && dissolvable(sub)) {
+				subs.removeElementAt(i);
+			}
+		}
+	}
+	
+	/*
+	 * Returns true if the given parser is the given class, and not 
+	 * a subclass that might match differently.
+	 */
+	protected static boolean exactly(Parser p, Class c) {
+		return p.getClass() == c;
+	}
+	
+	/*
+	 * Returns true if the given alternation's subparsers can move 
+	 * up into the given parent alternation.
+	 */
+	protected static boolean flattens(Alternation child, Alternation parent) {
+		return exactly(child, Alternation.class) && dissolvable(child) 
+			&& (!child.lookahead || parent.lookahead);
+	}
+	
+	/*
+	 * Returns true if the given sequence can be replaced by a run 
+	 * of its terminals.
+	 */
+	protected static boolean isRun(Sequence s) {
+		Vector subs = s.getSubparsers();
+		if (!exactly(s, Sequence.class) || s.deduplicate || subs.size() < 2) {
+			return false;
+		}
+		for (int i = 0; i < subs.size(); i++) {
+			if (!runnable((Parser) subs.elementAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Replace each stretch of two or more terminals in a 
+	 * sequence's subparsers with a run of them.
+	 */
+	protected static void mergeRuns(Vector subs) {
+		int i = 0;
+		while (i < subs.size()) {
+			int j = i;
+			while (j < subs.size() && runnable((Parser) subs.elementAt(j))) {
+				j++;
+			}
+			if (j - i >= 2) {
+				Vector run = new Vector(subs.subList(i, j));
+				subs.subList(i, j).clear();
+				subs.insertElementAt(new TerminalRun(run), i);
+				i++;
+			} else {
+				i = Math.max(j, i + 1);
+			}
+		}
+	}
+	
+	/**
+	 * Rewrites the grammar that starts with the given parser into 
+	 * an equivalent one that matches in fewer steps, and returns 
+	 * its start. See <code>rewrite()</code>.
+	 * 
+	 * @param Parser the start of the grammar to optimize
+	 * 
+	 * @return the start of the optimized grammar
+	 */
+	public static Parser optimize(Parser start) {
+		return new ParserOptimizer().rewrite(start);
+	}
+	
+	/*
+	 * Returns the parser that can take the given parser's place, 
+	 * or null if it should stay.
+	 */
+	protected Parser replacement(Parser p) {
+		if (!(p instanceof CollectionParser)) {
+			return null;
+		}
+		Vector subs = ((CollectionParser) p).getSubparsers();
+		if (subs.size() == 1 && dissolvable(p) 
+			&& (exactly(p, Sequence.class) || exactly(p, Alternation.class))) {
+			
+			return (Parser) subs.elementAt(0);
+		}
+		if (subs.size() == 1 && exactly(p, Alternation.class) && !p.deduplicate) {
+			Parser u = (Parser) subs.elementAt(0);
+			if (unions.containsKey(u) && u.name == null && u.assembler == null) {
+				u.name = p.name;
+				u.assembler = p.assembler;
+				u.minLength = p.minLength;
+				return u;
+			}
+		}
+		if (p instanceof Sequence && isRun((Sequence) p)) {
+			TerminalRun run = new TerminalRun(subs);
+			run.name = p.name;
+			run.assembler = p.assembler;
+			run.minLength = p.minLength;
+			return run;
+		}
+		return null;
+	}
+	
+	/*
+	 * Returns the parser that takes the given parser's place.
+	 */
+	protected Parser resolve(Parser p) {
+		Parser r = (Parser) replacements.get(p);
+		while (r != null) {
+			p = r;
+			r = (Parser) replacements.get(p);
+		}
+		return p;
+	}
+	
+	/*
+	 * Replace each subparser of a collection with the parser that 
+	 * takes its place.
+	 */
+	protected void resolveAll(CollectionParser c) {
+		Vector subs = c.getSubparsers();
+		for (int i = 0; i < subs.size(); i++) {
+			subs.setElementAt(resolve((Parser) subs.elementAt(i)), i);
+		}
+	}
+	
+	/**
+	 * Rewrites the grammar that starts with the given parser into 
+	 * an equivalent one that matches in fewer steps, and returns 
+	 * its start. The grammar changes in place:
+	 * <ul>
+	 * <li>Sequences take the subparsers of sequences inside them, 
+	 * and alternations the branches of alternations inside them.
+	 * <li>A sequence or alternation with only one subparser gives 
+	 * way to that subparser.
+	 * <li>Sequences drop <code>Empty</code> parsers, and 
+	 * alternations drop branches that can never match.
+	 * <li>Neighbouring terminals in a sequence become one 
+	 * <code>TerminalRun</code>, which matches them without the 
+	 * intermediate sets.
+	 * <li>Neighbouring branches of an alternation that are 
+	 * terminals of one class become the terminal their 
+	 * <code>union()</code> returns, if it returns one; literals 
+	 * become a <code>KeywordSet</code>.
+	 * </ul>
+	 * A parser with a name, an assembler or deduplication is never 
+	 * dissolved, and only the exact classes above are rewritten, 
+	 * since subclasses may match differently. Parsers outside the 
+	 * grammar that refer to parsers in it still work, but may not 
+	 * get the faster forms.
+	 * 
+	 * @param Parser the start of the grammar to optimize
+	 * 
+	 * @return the start of the optimized grammar
+	 * 
+	 * @exception IllegalArgumentException if a repetition in the 
+	 *            grammar would match forever
+	 */
+	public Parser rewrite(Parser start) {
+		analyzer = new GrammarAnalyzer(start);
+		analyzer.checkRepetitions();
+		Vector parsers = (Vector) analyzer.parsers.clone();
+		phase = SIMPLIFY;
+		int n = parsers.size();
+		for (int i = 0; i < n; i++) {
+			((Parser) parsers.elementAt(i)).accept(this, parsers);
+		}
+		for (int i = 0; i < n; i++) {
+			Parser p = (Parser) parsers.elementAt(i);
+			Parser r = replacement(p);
+			if (r != null && resolve(r) != p) {
+				replacements.put(p, r);
+			}
+		}
+		phase = RESOLVE;
+		for (int i = 0; i < n; i++) {
+			((Parser) parsers.elementAt(i)).accept(this, parsers);
+		}
+		return resolve(start);
+	}
+	
+	/*
+	 * Returns true if the given parser is a terminal that a run 
+	 * can match for it. A named terminal stays out of runs, so 
+	 * that it still opens its own syntax node and keeps its own 
+	 * statistics.
+	 */
+	protected static boolean runnable(Parser p) {
+		return p instanceof Terminal && p.name == null && !p.deduplicate 
+			&& !ParserCompiler.overrides(p, Terminal.class, "match", AssemblySet.class) 
+			&& !ParserCompiler.overrides(p, Parser.class, "matchAndAssemble", AssemblySet.class) 
+			&& !ParserCompiler.overrides(p, Parser.class, "unmemoizedMatchAndAssemble", AssemblySet.class) 
+			&& !ParserCompiler.overrides(p, Terminal.class, "matchOneAssembly", Assembly.class);
+	}
+	
+	/*
+	 * Replace each stretch of two or more branches that are 
+	 * terminals of one class with their union, if they have one.
+	 */
+	protected void unite(Vector subs) {
+		int i = 0;
+		while (i < subs.size()) {
+			Object first = subs.elementAt(i);
+			int j = i + 1;
+			if (first instanceof Terminal) {
+				while (j < subs.size() 
+					&& subs.elementAt(j).getClass() == first.getClass()) {
+					
+					j++;
+				}
+			}
+			Terminal u = null;
+			if (j - i >= 2) {
+				u = ((Terminal) first).union(new Vector(subs.subList(i, j)));
+			}
+			if (u != null) {
+				subs.subList(i, j).clear();
+				subs.insertElementAt(u, i);
+				unions.put(u, u);
+				i++;
+			} else {
+				i = j;
+			}
+		}
+	}
+	
+	/**
+	 * Takes the branches of alternations inside the given one, 
+	 * drops branches that can never match, and unites branches 
+	 * that are terminals.
+	 * 
+	 * @param Alternation the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitAlternation(Alternation a, Vector v) {
+		if (phase == RESOLVE) {
+			resolveAll(a);
+			a.lookaheadTable = null;
+			return;
+		}
+		if (!exactly(a, Alternation.class)) {
+			return;
+		}
+		Vector subs = a.getSubparsers();
+		IdentityHashMap taken = new IdentityHashMap();
+		int i = 0;
+		while (i < subs.size()) {
+			Parser sub = (Parser) subs.elementAt(i);
+			if (analyzer.minLength(sub) == GrammarAnalyzer.INFINITE) {
+				subs.removeElementAt(i);
+			} else if (sub != a && sub instanceof Alternation 
+				&& flattens((Alternation) sub, a) && taken.put(sub, sub) == null) {
+				
+				subs.removeElementAt(i);
+				subs.addAll(i, ((Alternation) sub).getSubparsers());
+			} else {
+				i++;
+			}
+		}
+		unite(subs);
+		a.lookaheadTable = null;
+	}
+	
+	/**
+	 * An empty parser has nothing to simplify.
+	 * 
+	 * @param Empty the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitEmpty(Empty e, Vector v) {
+	}
+	
+	/**
+	 * Gives a repetition the parser that takes its subparser's 
+	 * place.
+	 * 
+	 * @param Repetition the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitRepetition(Repetition r, Vector v) {
+		if (phase == RESOLVE) {
+			r.subparser = resolve(r.subparser);
+		}
+	}
+	
+	/**
+	 * Takes the subparsers of sequences inside the given one, 
+	 * drops <code>Empty</code> parsers, and turns neighbouring 
+	 * terminals into runs.
+	 * 
+	 * @param Sequence the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitSequence(Sequence s, Vector v) {
+		if (phase == RESOLVE) {
+			resolveAll(s);
+			return;
+		}
+		if (!exactly(s, Sequence.class)) {
+			return;
+		}
+		Vector subs = s.getSubparsers();
+		IdentityHashMap taken = new IdentityHashMap();
+		int i = 0;
+		while (i < subs.size()) {
+			Parser sub = (Parser) subs.elementAt(i);
+			if (sub != s && exactly(sub, Sequence.class) 
+				&& dissolvable(sub) && taken.put(sub, sub) == null) {
+				
+				subs.removeElementAt(i);
+				subs.addAll(i, ((Sequence) sub).getSubparsers());
+			} else {
+				i++;
+			}
+		}
+		dropEmpties(subs);
+		if (!isRun(s)) {
+			mergeRuns(subs);
+		}
+	}
+	
+	/**
+	 * A terminal has nothing to simplify.
+	 * 
+	 * @param Terminal the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitTerminal(Terminal t, Vector v) {
+	}
+}
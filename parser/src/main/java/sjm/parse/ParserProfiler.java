@@ -0,0 +1,270 @@
+/*
+ * @(#)ParserProfiler.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class ParserProfiler extends ParserVisitor {
+	
+	/**
+	 * the system property that, set to true, turns profiling on 
+	 * from the start
+	 */
+	public static final String PROPERTY = "sjm.parse.profile";
+	
+	/*
+	 * whether instrumented parsers record their figures; 
+	 * instrumented parsers read this on every match, and 
+	 * assemblies on every clone
+	 */
+	protected static volatile boolean enabled = Boolean.getBoolean(PROPERTY);
+	
+	/*
+	 * for each thread, the number of assemblies it has cloned 
+	 * while profiling was on
+	 */
+	protected static final ThreadLocal cloned = new ThreadLocal() {
+		protected Object initialValue() {
+			return new long[1];
+		}
+	};
+	
+	/*
+	 * the figures for every parser instrumented, in the order found
+	 */
+	protected Vector stats = new Vector();
+	
+	/*
+	 * the parsers instrumented so far
+	 */
+	protected IdentityHashMap found = new IdentityHashMap();
+	
+	/**
+	 * Constructs a profiler with no parsers instrumented.
+	 */
+	public ParserProfiler() {
+	}
+	
+	/**
+	 * Constructs a profiler that instruments every parser in the 
+	 * given parser's graph.
+	 * 
+	 * @param   Parser   the parser to instrument, with all the 
+	 *                   parsers it uses
+	 */
+	public ParserProfiler(Parser p) {
+		instrument(p);
+	}
+	
+	/*
+	 * Count one clone against the current thread.
+	 */
+	protected static void cloned() {
+		((long[]) cloned.get())[0]++;
+	}
+	
+	/*
+	 * Returns how many clones the current thread has counted.
+	 */
+	protected static long clones() {
+		return ((long[]) cloned.get())[0];
+	}
+	
+	/**
+	 * Gives every parser in the given parser's graph a record of 
+	 * figures, which it adds to each time it matches while 
+	 * profiling is on. A parser already instrumented by another 
+	 * profiler shares its figures with that one.
+	 * 
+	 * @param   Parser   the parser to instrument, with all the 
+	 *                   parsers it uses
+	 */
+	public void instrument(Parser p) {
+		int i = stats.size();
+		reach(p);
+		for (; i < stats.size(); i++) {
+			((ParserStats) stats.elementAt(i)).getParser().accept(this, stats);
+		}
+	}
+	
+	/**
+	 * Returns true if instrumented parsers are recording figures.
+	 * 
+	 * @return true, if profiling is on
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/*
+	 * Instrument the given parser if this profiler has not yet.
+	 */
+	protected void reach(Parser p) {
+		if (found.containsKey(p)) {
+			return;
+		}
+		found.put(p, p);
+		if (p.stats == null) {
+			p.stats = new ParserStats(p);
+		}
+		stats.addElement(p.stats);
+	}
+	
+	/*
+	 * Instrument each parser in the given vector.
+	 */
+	protected void reachAll(Vector parsers) {
+		int n = parsers.size();
+		for (int i = 0; i < n; i++) {
+			reach((Parser) parsers.elementAt(i));
+		}
+	}
+	
+	/**
+	 * Sets every figure of every instrumented parser back to zero.
+	 */
+	public void reset() {
+		int n = stats.size();
+		for (int i = 0; i < n; i++) {
+			((ParserStats) stats.elementAt(i)).reset();
+		}
+	}
+	
+	/**
+	 * Turns profiling on or off for every instrumented parser, 
+	 * in every thread. This takes effect for matches that start 
+	 * after the call. With profiling off, each match of an 
+	 * instrumented parser and each clone of any assembly still 
+	 * reads this setting, a volatile read.
+	 * 
+	 * @param   boolean   true, to record figures
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+	
+	/**
+	 * Returns a copy of the figures of every instrumented parser, 
+	 * in the order the parsers were found. The figures of each 
+	 * parser are read together, but parses still running may 
+	 * change other parsers' figures meanwhile.
+	 * 
+	 * @return a vector of <code>ParserStats</code> copies
+	 */
+	public Vector snapshot() {
+		int n = stats.size();
+		Vector v = new Vector(n);
+		for (int i = 0; i < n; i++) {
+			v.addElement(((ParserStats) stats.elementAt(i)).copy());
+		}
+		return v;
+	}
+	
+	/**
+	 * Returns a report of the figures for every instrumented 
+	 * parser, one line each, the parsers that took longest first.
+	 * 
+	 * @return a report of the figures for every parser
+	 */
+	public String toString() {
+		Vector v = snapshot();
+		Collections.sort(v, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				long n1 = ((ParserStats) o1).getNanos();
+				long n2 = ((ParserStats) o2).getNanos();
+				return n1 < n2 ? 1 : n1 > n2 ? -1 : 0;
+			}
+		});
+		StringBuffer buf = new StringBuffer();
+		int n = v.size();
+		for (int i = 0; i < n; i++) {
+			buf.append(v.elementAt(i)).append("\n");
+		}
+		return buf.toString();
+	}
+	
+	/**
+	 * Stops every parser this profiler instrumented from 
+	 * recording figures, and forgets them.
+	 */
+	public void uninstrument() {
+		int n = stats.size();
+		for (int i = 0; i < n; i++) {
+			((ParserStats) stats.elementAt(i)).getParser().stats = null;
+		}
+		stats.removeAllElements();
+		found.clear();
+	}
+	
+	/**
+	 * Instruments the subparsers of an alternation.
+	 * 
+	 * @param Alternation the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitAlternation(Alternation a, Vector v) {
+		reachAll(a.getSubparsers());
+	}
+	
+	/**
+	 * Empty parsers have no subparsers.
+	 * 
+	 * @param Empty the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitEmpty(Empty e, Vector v) {
+	}
+	
+	/**
+	 * Instruments the subparser of a repetition.
+	 * 
+	 * @param Repetition the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitRepetition(Repetition r, Vector v) {
+		reach(r.getSubparser());
+	}
+	
+	/**
+	 * Instruments the subparsers of a sequence.
+	 * 
+	 * @param Sequence the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitSequence(Sequence s, Vector v) {
+		reachAll(s.getSubparsers());
+	}
+	
+	/**
+	 * Terminals have no subparsers.
+	 * 
+	 * @param Terminal the parser to visit
+	 * 
+	 * @param Vector a collection of previously visited parsers
+	 */
+	public void visitTerminal(Terminal t, Vector v) {
+	}
+}
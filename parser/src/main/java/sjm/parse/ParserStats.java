@@ -0,0 +1,189 @@
+/*
+ * @(#)ParserStats.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ParserStats {
+	
+	/*
+	 * the parser these figures are for
+	 */
+	protected Parser parser;
+	
+	/*
+	 * how many times the parser matched, the sizes of the sets it 
+	 * got and gave, the assemblies cloned and the nanoseconds 
+	 * spent while it matched
+	 */
+	protected final AtomicLong calls = new AtomicLong();
+	protected final AtomicLong assembliesIn = new AtomicLong();
+	protected final AtomicLong assembliesOut = new AtomicLong();
+	protected final AtomicLong clones = new AtomicLong();
+	protected final AtomicLong nanos = new AtomicLong();
+	
+	/**
+	 * Constructs an empty record of figures for the given parser.
+	 * 
+	 * @param   Parser   the parser to keep figures for
+	 */
+	public ParserStats(Parser parser) {
+		this.parser = parser;
+	}
+	
+	/**
+	 * Returns a copy of these figures as they are now.
+	 * 
+	 * @return a copy of these figures
+	 */
+	public ParserStats copy() {
+		ParserStats s = new ParserStats(parser);
+		s.calls.set(calls.get());
+		s.assembliesIn.set(assembliesIn.get());
+		s.assembliesOut.set(assembliesOut.get());
+		s.clones.set(clones.get());
+		s.nanos.set(nanos.get());
+		return s;
+	}
+	
+	/**
+	 * Returns the total number of assemblies in the sets the parser 
+	 * was given to match.
+	 * 
+	 * @return the number of assemblies the parser was given
+	 */
+	public long getAssembliesIn() {
+		return assembliesIn.get();
+	}
+	
+	/**
+	 * Returns the total number of assemblies in the sets the parser 
+	 * gave back.
+	 * 
+	 * @return the number of assemblies the parser gave back
+	 */
+	public long getAssembliesOut() {
+		return assembliesOut.get();
+	}
+	
+	/**
+	 * Returns the number of times the parser matched a set of 
+	 * assemblies.
+	 * 
+	 * @return the number of times the parser matched
+	 */
+	public long getCalls() {
+		return calls.get();
+	}
+	
+	/**
+	 * Returns the number of assemblies cloned while the parser 
+	 * matched, including clones its subparsers made. Clones are 
+	 * counted per thread, so clones that the worker threads of a 
+	 * <code>ParallelAlternation</code> make count only for the 
+	 * parsers matched on those threads, not for the parsers 
+	 * above the alternation. A worker that runs other work while 
+	 * it waits for a nested alternation counts that work's 
+	 * clones too.
+	 * 
+	 * @return the number of assemblies cloned while the parser 
+	 *         matched
+	 */
+	public long getClones() {
+		return clones.get();
+	}
+	
+	/**
+	 * Returns the parser's name, or the name of its class if it 
+	 * has none.
+	 * 
+	 * @return a name for the parser
+	 */
+	public String getName() {
+		if (parser.getName() != null) {
+			return parser.getName();
+		}
+		String s = parser.getClass().getName();
+		return s.substring(s.lastIndexOf('.') + 1);
+	}
+	
+	/**
+	 * Returns the nanoseconds spent while the parser matched, 
+	 * including the time its subparsers took. A parser that calls 
+	 * itself counts the time of the inner calls again.
+	 * 
+	 * @return the nanoseconds spent while the parser matched
+	 */
+	public long getNanos() {
+		return nanos.get();
+	}
+	
+	/**
+	 * Returns the parser these figures are for.
+	 * 
+	 * @return the parser these figures are for
+	 */
+	public Parser getParser() {
+		return parser;
+	}
+	
+	/**
+	 * Adds one match of the parser to these figures.
+	 * 
+	 * @param   int   the number of assemblies the parser was given
+	 * 
+	 * @param   int   the number of assemblies it gave back
+	 * 
+	 * @param   long   the number of assemblies cloned meanwhile
+	 * 
+	 * @param   long   the nanoseconds the match took
+	 */
+	public void record(int in, int out, long cloned, long elapsed) {
+		calls.incrementAndGet();
+		assembliesIn.addAndGet(in);
+		assembliesOut.addAndGet(out);
+		clones.addAndGet(cloned);
+		nanos.addAndGet(elapsed);
+	}
+	
+	/**
+	 * Sets every figure back to zero.
+	 */
+	public void reset() {
+		calls.set(0);
+		assembliesIn.set(0);
+		assembliesOut.set(0);
+		clones.set(0);
+		nanos.set(0);
+	}
+	
+	/**
+	 * Returns a one-line summary of these figures.
+	 * 
+	 * @return a one-line summary of these figures
+	 */
+	public String toString() {
+		return getName() + ": " + getCalls() + " calls, " 
+			+ getAssembliesIn() + " in, " + getAssembliesOut() + " out, " 
+			+ getClones() + " clones, " + getNanos() / 1000 + " us";
+	}
+}
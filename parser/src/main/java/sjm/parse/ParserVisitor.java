@@ -35,6 +35,20 @@ public abstract class ParserVisitor {
 	 */
 	public abstract void visitAlternation(
 		Alternation a, Vector visited);
+	/**
+	 * Visit a bounded repetition. By default this visits it as a 
+	 * plain repetition.
+	 *
+	 * @param   BoundedRepetition   the parser to visit
+	 *
+	 * @param   Vector   a collection of previously visited parsers
+	 *
+	 */
+	public void visitBoundedRepetition(
+		BoundedRepetition r, Vector visited) {
+		
+		visitRepetition(r, visited);
+	}
 	/**
 	 * Visit an empty parser.
 	 *
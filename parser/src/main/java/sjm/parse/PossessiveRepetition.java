@@ -0,0 +1,127 @@
+/*
+ * @(#)PossessiveRepetition.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class PossessiveRepetition extends Repetition {
+	
+	/**
+	 * Constructs a possessive repetition of the given parser.
+	 * 
+	 * @param parser
+	 *            the parser to repeat
+	 * 
+	 * @return a repetition that will match the given parser as many 
+	 *         times as it can, and no fewer
+	 */
+	public PossessiveRepetition(Parser p) {
+		this(p, null);
+	}
+	
+	/**
+	 * Constructs a possessive repetition of the given parser with the 
+	 * given name.
+	 * 
+	 * @param Parser
+	 *            the parser to repeat
+	 * 
+	 * @param String
+	 *            a name to be known by
+	 * 
+	 * @return a repetition that will match the given parser as many 
+	 *         times as it can, and no fewer
+	 */
+	public PossessiveRepetition(Parser subparser, String name) {
+		super(subparser, name);
+	}
+	
+	/**
+	 * Given a set of assemblies, this method applies a preassembler to all of
+	 * them, matches its subparser repeatedly against each of them, and 
+	 * returns a new set of just the assemblies that went furthest from 
+	 * each starting assembly.
+	 * <p>
+	 * For example, matching the regular expression <code>a*+
+	 * </code> against <code>{^aaab}</code> results in <code>
+	 * {aaa^b}</code>, where a plain repetition would also keep 
+	 * <code>^aaab</code>, <code>a^aab</code> and <code>aa^ab</code>.
+	 * 
+	 * @return a set of assemblies that result from matching against a
+	 *         beginning set of assemblies
+	 * 
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
+	 * 
+	 */
+	public AssemblySet match(AssemblySet in) {
+		if (preAssembler != null) {
+			int n = in.size();
+			for (int i = 0; i < n; i++) {
+				in.get(i).assemble(preAssembler);
+			}
+		}
+		AssemblySet out = new AssemblySet(in.size());
+		int n = in.size();
+		for (int i = 0; i < n; i++) {
+			out.addAll(matchLongest(in.get(i)));
+		}
+		return out;
+	}
+	
+	/*
+	 * Match the subparser repeatedly against one assembly, keeping 
+	 * only the results that consumed the most elements.
+	 */
+	protected AssemblySet matchLongest(Assembly a) {
+		AssemblySet longest = new AssemblySet((Assembly) a.clone());
+		int most = a.elementsConsumed();
+		AssemblySet s = new AssemblySet(a); // a working state
+		while (true) {
+			s = subparser.matchAndAssemble(s);
+			if (s.isEmpty()) {
+				return longest;
+			}
+			if (deduplicate) {
+				s = s.distinct();
+			}
+			int n = s.size();
+			for (int i = 0; i < n; i++) {
+				Assembly b = s.get(i);
+				int consumed = b.elementsConsumed();
+				if (consumed > most) {
+					most = consumed;
+					longest = new AssemblySet(b);
+				} else if (consumed == most) {
+					longest.add(b);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Returns a textual description of this parser.
+	 */
+	protected String unvisitedString(Vector visited) {
+		return subparser.toString(visited) + "*+";
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * @(#)PushParser.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+public class PushParser {
+	
+	/*
+	 * the instructions the threads run
+	 */
+	protected CompiledParser parser;
+	
+	/*
+	 * the threads waiting for more elements
+	 */
+	protected CompiledParser.Threads waiting = new CompiledParser.Threads();
+	
+	/*
+	 * the assemblies of threads that matched, with the keys that 
+	 * put them in the order the set-based engine would give
+	 */
+	protected CompiledParser.Results results = new CompiledParser.Results(false);
+	
+	/*
+	 * true once no more elements will arrive
+	 */
+	protected boolean ended;
+	
+	/**
+	 * Starts matching the given parser against an assembly whose 
+	 * elements are still arriving. The parser is compiled, unless 
+	 * it already is. Each thread of the compiled parser runs as 
+	 * far as the elements that have arrived allow, and then waits; 
+	 * call <code>resume()</code> when more have arrived, and 
+	 * <code>end()</code> when no more will. The assembly must grow 
+	 * in place, as a <code>TokenAssembly</code> over a 
+	 * <code>TokenBuffer</code> does. 
+	 * <p>
+	 * Delegated parsers, which include left recursive ones, match 
+	 * only once every element has arrived. If the grammar is left 
+	 * recursive and the assembly carries no memo, the parse gets 
+	 * a new <code>PackratMemo</code>, without which those parsers 
+	 * would recurse until the stack overflows.
+	 * 
+	 * @param Parser the parser to match
+	 * 
+	 * @param Assembly the assembly whose elements are arriving
+	 */
+	public PushParser(Parser p, Assembly start) {
+		parser = p instanceof CompiledParser 
+			? (CompiledParser) p : ParserCompiler.compile(p);
+		Assembly a = (Assembly) start.clone();
+		if (a.getMemo() == null && !new GrammarAnalyzer(
+			parser.getSource()).leftRecursive().isEmpty()) {
+			
+			a.setMemo(new PackratMemo());
+		}
+		waiting.push(0, a, null, null);
+		resume();
+	}
+	
+	/**
+	 * Returns the assembly among the results so far that has 
+	 * consumed the most elements, with any deferred actions 
+	 * replayed, or null if nothing has matched yet. Before 
+	 * <code>end()</code>, later elements may let a longer match 
+	 * finish.
+	 * 
+	 * @return the result that has consumed the most elements
+	 */
+	public Assembly bestMatch() {
+		Assembly best = parser.best(results.toSet());
+		if (best == null) {
+			return null;
+		}
+		best = (Assembly) best.clone();
+		if (parser.assembler != null) {
+			best.assemble(parser.assembler);
+		}
+		best.replay();
+		return best;
+	}
+	
+	/**
+	 * Returns a result that consumed every element, once no more 
+	 * will arrive, or null.
+	 * 
+	 * @return a complete match, or null
+	 */
+	public Assembly completeMatch() {
+		if (!ended) {
+			return null;
+		}
+		Assembly best = bestMatch();
+		if (best != null && !best.hasMoreElements()) {
+			return best;
+		}
+		return null;
+	}
+	
+	/**
+	 * Tells this parse that no more elements will arrive, and lets 
+	 * the waiting threads finish.
+	 */
+	public void end() {
+		if (ended) {
+			return;
+		}
+		ended = true;
+		CompiledParser.Threads ready = waiting;
+		waiting = new CompiledParser.Threads();
+		parser.run(ready, results, null);
+	}
+	
+	/**
+	 * Returns the assemblies of the threads that have matched so 
+	 * far, in the order the parser would give them matching the 
+	 * elements so far all at once. Each has consumed the 
+	 * elements it matched; before <code>end()</code>, one that 
+	 * has consumed every element that has arrived may not be the 
+	 * complete match it seems.
+	 * 
+	 * @return the results so far
+	 */
+	public AssemblySet getResults() {
+		return results.toSet();
+	}
+	
+	/**
+	 * Returns true if no thread is waiting for more elements, so 
+	 * that no later element can change the results. A parse that 
+	 * dies before its input ends has found every match it will 
+	 * find, and the input will not match completely.
+	 * 
+	 * @return true, if no thread is waiting
+	 */
+	public boolean isDead() {
+		return waiting.size == 0;
+	}
+	
+	/**
+	 * Returns true once no more elements will arrive.
+	 * 
+	 * @return true, if <code>end()</code> has been called
+	 */
+	public boolean isEnded() {
+		return ended;
+	}
+	
+	/**
+	 * Lets the waiting threads run as far as the elements that 
+	 * have now arrived allow.
+	 * 
+	 * @exception IllegalStateException if the parse has ended
+	 */
+	public void resume() {
+		if (ended) {
+			throw new IllegalStateException("Parse has ended");
+		}
+		CompiledParser.Threads ready = waiting;
+		waiting = new CompiledParser.Threads();
+		parser.run(ready, results, waiting);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * @(#)RecoveryResult.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class RecoveryResult {
+	
+	/*
+	 * the assembly after every unit that matched
+	 */
+	protected Assembly assembly;
+	
+	/*
+	 * the errors, in order
+	 */
+	protected Vector errors;
+	
+	/**
+	 * Constructs the result of parsing with error recovery.
+	 * 
+	 * @param Assembly the assembly after every unit that matched
+	 * 
+	 * @param Vector the errors, in order
+	 */
+	public RecoveryResult(Assembly assembly, Vector errors) {
+		this.assembly = assembly;
+		this.errors = errors;
+	}
+	
+	/**
+	 * Returns the assembly after every unit that matched, with 
+	 * the work of their assemblers on its stack and target. The 
+	 * assembly has consumed all its elements.
+	 * 
+	 * @return the assembly after every unit that matched
+	 */
+	public Assembly getAssembly() {
+		return assembly;
+	}
+	
+	/**
+	 * Returns the errors found, as <code>ParseError</code> 
+	 * objects, in the order of the elements they skipped.
+	 * 
+	 * @return a vector of errors
+	 */
+	public Vector getErrors() {
+		return errors;
+	}
+	
+	/**
+	 * Returns the target of the assembly.
+	 * 
+	 * @return the target of the assembly
+	 */
+	public Object getTarget() {
+		return assembly.getTarget();
+	}
+	
+	/**
+	 * Returns true if every unit matched.
+	 * 
+	 * @return true, if there were no errors
+	 */
+	public boolean succeeded() {
+		return errors.isEmpty();
+	}
+	
+	/**
+	 * Returns a textual description of this result.
+	 * 
+	 * @return a textual description of this result
+	 */
+	public String toString() {
+		if (succeeded()) {
+			return assembly.toString();
+		}
+		return assembly + " " + errors;
+	}
+}
@@ -102,25 +102,28 @@ public class Repetition extends Parser {
 	 * </code> against <code>{^aaab}</code> results in <code>
 	 * {^aaab, a^aab, aa^ab, aaa^b}</code>.
 	 * 
-	 * @return a Vector of assemblies that result from matching against a
+	 * @return a set of assemblies that result from matching against a
 	 *         beginning set of assemblies
 	 * 
-	 * @param Vector
-	 *            a vector of assemblies to match against
+	 * @param AssemblySet
+	 *            a set of assemblies to match against
 	 * 
 	 */
-	public Vector match(Vector in) {
+	public AssemblySet match(AssemblySet in) {
 		if (preAssembler != null) {
-			Enumeration e = in.elements();
-			while (e.hasMoreElements()) {
-				preAssembler.workOn((Assembly) e.nextElement());
+			int n = in.size();
+			for (int i = 0; i < n; i++) {
+				in.get(i).assemble(preAssembler);
 			}
 		}
-		Vector out = elementClone(in);
-		Vector s = in; // a working state
+		AssemblySet out = in.elementClone();
+		AssemblySet s = in; // a working state
 		while (!s.isEmpty()) {
 			s = subparser.matchAndAssemble(s);
-			add(out, s);
+			if (deduplicate) {
+				s = s.distinct();
+			}
+			out.addAll(s);
 		}
 		return out;
 	}
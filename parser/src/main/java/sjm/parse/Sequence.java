@@ -93,17 +93,17 @@ public class Sequence extends CollectionParser {
 	 * sequence against all of them, and returns a new set 
 	 * of the assemblies that result from the matches.
 	 *
-	 * @return   a Vector of assemblies that result from 
+	 * @return   a set of assemblies that result from 
 	 *           matching against a beginning set of assemblies
 	 *
-	 * @param   Vector   a vector of assemblies to match against
+	 * @param   AssemblySet   a set of assemblies to match against
 	 *
 	 */
-	public Vector match(Vector in) {
-		Vector out = in;
-		Enumeration e = subparsers.elements();
-		while (e.hasMoreElements()) {
-			Parser p = (Parser) e.nextElement();
+	public AssemblySet match(AssemblySet in) {
+		AssemblySet out = in;
+		int n = subparsers.size();
+		for (int i = 0; i < n; i++) {
+			Parser p = (Parser) subparsers.elementAt(i);
 			out = p.matchAndAssemble(out);
 			if (out.isEmpty()) {
 				return out;
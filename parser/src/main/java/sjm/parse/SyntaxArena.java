@@ -0,0 +1,221 @@
+/*
+ * @(#)SyntaxArena.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class SyntaxArena {
+	
+	/*
+	 * the fields of a record, and the number of them
+	 */
+	protected static final int PARSER = 0;
+	protected static final int START = 1;
+	protected static final int END = 2;
+	protected static final int CHILD = 3;
+	protected static final int SIBLING = 4;
+	protected static final int WIDTH = 5;
+	
+	/*
+	 * the records, WIDTH cells each. A node's child is its last 
+	 * child and its sibling the node before it, so that nodes, 
+	 * once recorded, never change, and assemblies on different 
+	 * branches share the nodes they have in common. An open frame 
+	 * is a record with no parser whose child is the node before it 
+	 * and whose sibling is the frame around it.
+	 */
+	protected int[] cells = new int[WIDTH * 64];
+	
+	/*
+	 * how many records the cells hold
+	 */
+	protected int size;
+	
+	/*
+	 * the parsers that have recorded nodes, and their ids
+	 */
+	protected Vector parsers = new Vector();
+	protected IdentityHashMap ids = new IdentityHashMap();
+	
+	/**
+	 * Forget every recorded node. Assemblies that recorded nodes 
+	 * here must not be used with this arena afterwards.
+	 */
+	public void clear() {
+		size = 0;
+		parsers.removeAllElements();
+		ids.clear();
+	}
+	
+	/*
+	 * Close the frame each assembly has open into a node for the 
+	 * given parser, whose children are the nodes recorded since 
+	 * the frame opened.
+	 */
+	protected void close(Parser p, AssemblySet out) {
+		int id = id(p);
+		int n = out.size();
+		for (int i = 0; i < n; i++) {
+			Assembly b = out.get(i);
+			int f = b.frame * WIDTH;
+			b.node = record(
+				id, cells[f + START], b.index, b.node, cells[f + CHILD]);
+			b.frame = cells[f + SIBLING];
+		}
+	}
+	
+	/*
+	 * Returns the id of the given parser, giving it one if it has 
+	 * none yet.
+	 */
+	protected int id(Parser p) {
+		Integer id = (Integer) ids.get(p);
+		if (id == null) {
+			id = new Integer(parsers.size());
+			parsers.addElement(p);
+			ids.put(p, id);
+		}
+		return id.intValue();
+	}
+	
+	/**
+	 * Records a node with no children for the given terminal, 
+	 * spanning the element the given assembly has just consumed.
+	 * 
+	 * @param   Parser   the terminal that matched
+	 * 
+	 * @param   Assembly   the assembly the terminal advanced
+	 */
+	public void leaf(Parser p, Assembly a) {
+		a.node = record(id(p), a.index - 1, a.index, -1, a.node);
+	}
+	
+	/*
+	 * Returns the nodes of the chain that ends at the given node, 
+	 * in order.
+	 */
+	protected SyntaxNode[] nodes(int last) {
+		int n = 0;
+		for (int c = last; c >= 0; c = cells[c * WIDTH + SIBLING]) {
+			n++;
+		}
+		SyntaxNode[] nodes = new SyntaxNode[n];
+		for (int c = last; c >= 0; c = cells[c * WIDTH + SIBLING]) {
+			int r = c * WIDTH;
+			nodes[--n] = new SyntaxNode(
+				(Parser) parsers.elementAt(cells[r + PARSER]), 
+				cells[r + START], cells[r + END], nodes(cells[r + CHILD]));
+		}
+		return nodes;
+	}
+	
+	/*
+	 * Returns copies of the given assemblies, each with a frame 
+	 * open that starts where it is.
+	 */
+	protected AssemblySet open(AssemblySet in) {
+		int n = in.size();
+		AssemblySet out = new AssemblySet(n);
+		for (int i = 0; i < n; i++) {
+			Assembly b = (Assembly) in.get(i).clone();
+			b.frame = record(-1, b.index, b.index, b.node, b.frame);
+			b.node = -1;
+			out.add(b);
+		}
+		return out;
+	}
+	
+	/*
+	 * Returns a chain like the one that ends at the given node, 
+	 * except that where it reaches the one node it goes on to the 
+	 * other. The nodes up to there are copied; their children are 
+	 * shared.
+	 */
+	protected int rebase(int node, int from, int onto) {
+		int n = 0;
+		for (int c = node; c != from && c >= 0; c = cells[c * WIDTH + SIBLING]) {
+			n++;
+		}
+		int[] chain = new int[n];
+		int c = node;
+		for (int i = 0; i < n; i++) {
+			chain[i] = c;
+			c = cells[c * WIDTH + SIBLING];
+		}
+		if (c != from) {
+			return node;
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			int r = chain[i] * WIDTH;
+			onto = record(cells[r + PARSER], cells[r + START], 
+				cells[r + END], cells[r + CHILD], onto);
+		}
+		return onto;
+	}
+	
+	/*
+	 * Add a record, growing the cells if they are full, and 
+	 * return its index.
+	 */
+	protected int record(
+		int parser, int start, int end, int child, int sibling) {
+		
+		int r = size * WIDTH;
+		if (r == cells.length) {
+			int[] bigger = new int[cells.length * 2];
+			System.arraycopy(cells, 0, bigger, 0, r);
+			cells = bigger;
+		}
+		cells[r + PARSER] = parser;
+		cells[r + START] = start;
+		cells[r + END] = end;
+		cells[r + CHILD] = child;
+		cells[r + SIBLING] = sibling;
+		return size++;
+	}
+	
+	/**
+	 * Returns the number of records this arena holds, including 
+	 * nodes from branches the parse gave up and the frames 
+	 * parsers opened.
+	 * 
+	 * @return the number of records in this arena
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Builds the syntax tree the given assembly recorded. The root 
+	 * has no parser and spans everything the assembly consumed; 
+	 * its children are the nodes of the parsers that matched 
+	 * outermost.
+	 * 
+	 * @param   Assembly   an assembly that recorded nodes in this 
+	 *                     arena
+	 * 
+	 * @return   the tree of nodes the assembly recorded
+	 */
+	public SyntaxNode tree(Assembly a) {
+		return new SyntaxNode(null, 0, a.index, nodes(a.node));
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * @(#)SyntaxNode.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+public class SyntaxNode {
+	
+	/*
+	 * the parser that matched, or null at the root
+	 */
+	protected Parser parser;
+	
+	/*
+	 * the position of the first element matched, and the position 
+	 * just past the last
+	 */
+	protected int start;
+	protected int end;
+	
+	/*
+	 * the nodes of parsers that matched inside this one, in order
+	 */
+	protected SyntaxNode[] children;
+	
+	/**
+	 * Constructs a node for a match of the given parser.
+	 * 
+	 * @param   Parser   the parser that matched
+	 * 
+	 * @param   int   the position of the first element matched
+	 * 
+	 * @param   int   the position just past the last element 
+	 *                matched
+	 * 
+	 * @param   SyntaxNode[]   the nodes matched inside this one
+	 */
+	public SyntaxNode(
+		Parser parser, int start, int end, SyntaxNode[] children) {
+		
+		this.parser = parser;
+		this.start = start;
+		this.end = end;
+		this.children = children;
+	}
+	
+	/**
+	 * Returns the node's child at the given index.
+	 * 
+	 * @param   int   the index of the child
+	 * 
+	 * @return   the child at that index
+	 */
+	public SyntaxNode getChild(int i) {
+		return children[i];
+	}
+	
+	/**
+	 * Returns the number of children this node has.
+	 * 
+	 * @return   the number of children this node has
+	 */
+	public int getChildCount() {
+		return children.length;
+	}
+	
+	/**
+	 * Returns the position just past the last element matched.
+	 * 
+	 * @return   the end of this node's span
+	 */
+	public int getEnd() {
+		return end;
+	}
+	
+	/**
+	 * Returns the parser that matched, or null at the root of a 
+	 * tree.
+	 * 
+	 * @return   the parser that matched
+	 */
+	public Parser getParser() {
+		return parser;
+	}
+	
+	/**
+	 * Returns the position of the first element matched.
+	 * 
+	 * @return   the start of this node's span
+	 */
+	public int getStart() {
+		return start;
+	}
+	
+	/**
+	 * Returns a textual description of this node and the nodes 
+	 * under it: the parser's name, or the parser itself if it has 
+	 * none, followed by the children in parentheses.
+	 * 
+	 * @return   a textual description of this tree
+	 */
+	public String toString() {
+		StringBuffer buf = new StringBuffer();
+		if (parser != null) {
+			buf.append(parser.getName() != null ? parser.getName() : parser.toString());
+		}
+		if (children.length > 0) {
+			buf.append("(");
+			for (int i = 0; i < children.length; i++) {
+				if (i > 0) {
+					buf.append(" ");
+				}
+				buf.append(children[i]);
+			}
+			buf.append(")");
+		}
+		return buf.toString();
+	}
+}
@@ -67,25 +67,49 @@ public class Terminal extends Parser {
 		return setDiscard(true);
 	}
 	
+	/**
+	 * Returns true if this terminal leaves the elements it 
+	 * matches off the assembly's stack.
+	 *
+	 * @return   true, if this terminal discards what it matches
+	 */
+	public boolean isDiscard() {
+		return discard;
+	}
+	
+	/**
+	 * Returns the keys of the elements this terminal can match, 
+	 * in the form <code>Assembly.peekLookaheadKeys()</code> 
+	 * gives them, or null if this terminal might match any 
+	 * element. A lookahead table files this terminal under each of 
+	 * these keys, so a terminal that returns keys must not match 
+	 * an element whose keys include none of them.
+	 *
+	 * @return   the keys of the elements this terminal can match, 
+	 *           or null
+	 */
+	public Object[] lookaheadKeys() {
+		return null;
+	}
+	
 	/**
 	 * Given a collection of assemblies, this method matches
 	 * this terminal against all of them, and returns a new collection
 	 * of the assemblies that result form the matches.
 	 * 
-	 * @return a Vector of assemblies that result from 
+	 * @return a set of assemblies that result from 
 	 * matching against a beginning set of assemblies
 	 * 
-	 * @param Vector a vector of assemblies to match against
+	 * @param AssemblySet a set of assemblies to match against
 	 * 
 	 */
-	public Vector match(Vector in) {
-		Vector out = new Vector();
-		Enumeration e = in.elements();
-		while (e.hasMoreElements()) {
-			Assembly a = (Assembly) e.nextElement();
-			Assembly b = matchOneAssembly(a);
+	public AssemblySet match(AssemblySet in) {
+		int n = in.size();
+		AssemblySet out = new AssemblySet(n);
+		for (int i = 0; i < n; i++) {
+			Assembly b = matchOneAssembly(in.get(i));
 			if (b != null) {
-				out.addElement(b);
+				out.add(b);
 			}
 		}
 		return out;
@@ -109,6 +133,9 @@ public class Terminal extends Parser {
 		if (qualifies(in.peek())) {
 			Assembly out = (Assembly) in.clone();
 			Object o = out.nextElement();
+			if (out.arena != null) {
+				out.arena.leaf(this, out);
+			}
 			if (!discard) {
 				out.push(o);
 			}
@@ -160,6 +187,24 @@ public class Terminal extends Parser {
 		return this;
 	}
 	
+	/**
+	 * Returns a terminal that matches, in one step, whatever any 
+	 * of the given terminals would match as the branches of an 
+	 * alternation, with the same results, or null if this 
+	 * terminal does not know how to make one. The terminals 
+	 * include this one. An optimizer may put the returned 
+	 * terminal in place of the branches. By default, this method 
+	 * returns null.
+	 *
+	 * @param   Vector   the terminals to unite, this one among them
+	 *
+	 * @return   a terminal that matches what the given terminals 
+	 *           match, or null
+	 */
+	public Terminal union(Vector terminals) {
+		return null;
+	}
+	
 	/*
 	 * Returns a textual description of this parser.
 	 */
@@ -0,0 +1,129 @@
+/*
+ * @(#)TerminalRun.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse;
+
+import java.util.*;
+
+public class TerminalRun extends Sequence {
+	
+	/**
+	 * Constructs a nameless run of terminals.
+	 */
+	public TerminalRun() {
+	}
+	
+	/**
+	 * Constructs a run of terminals with the given name.
+	 * 
+	 * @param String a name to be known by
+	 */
+	public TerminalRun(String name) {
+		super(name);
+	}
+	
+	/**
+	 * Constructs a run of the given terminals.
+	 * 
+	 * @param Vector the terminals to match, in order
+	 */
+	public TerminalRun(Vector terminals) {
+		int n = terminals.size();
+		for (int i = 0; i < n; i++) {
+			add((Terminal) terminals.elementAt(i));
+		}
+	}
+	
+	/**
+	 * Adds a terminal to the end of this run.
+	 * 
+	 * @param Parser the terminal to add
+	 * 
+	 * @return this
+	 * 
+	 * @exception IllegalArgumentException if the parser is not a 
+	 *            terminal
+	 */
+	public CollectionParser add(Parser e) {
+		if (!(e instanceof Terminal)) {
+			throw new IllegalArgumentException(
+				"Only terminals can be in a run: " + e);
+		}
+		return super.add(e);
+	}
+	
+	/**
+	 * Matches each terminal in turn against a single copy of each 
+	 * assembly, as a sequence of the terminals would, applying 
+	 * each terminal's assembler as it matches. This makes one 
+	 * clone per assembly and no intermediate sets.
+	 * 
+	 * @return a set of assemblies that result from matching 
+	 *         against a beginning set of assemblies
+	 * 
+	 * @param AssemblySet a set of assemblies to match against
+	 */
+	public AssemblySet match(AssemblySet in) {
+		int n = in.size();
+		int m = subparsers.size();
+		AssemblySet out = new AssemblySet(n);
+		for (int i = 0; i < n; i++) {
+			Assembly a = in.get(i);
+			if (!a.hasRemaining(m) 
+				|| (m > 0 && !((Terminal) subparsers.elementAt(0)).qualifies(a.peek()))) {
+				
+				continue;
+			}
+			Assembly b = matchRun(a);
+			if (b != null) {
+				out.add(b);
+			}
+		}
+		return out;
+	}
+	
+	/*
+	 * Match every terminal against a copy of the given assembly, 
+	 * which has enough elements left. Returns null if one of them 
+	 * does not match.
+	 */
+	protected Assembly matchRun(Assembly a) {
+		Assembly b = (Assembly) a.clone();
+		int m = subparsers.size();
+		for (int j = 0; j < m; j++) {
+			Terminal t = (Terminal) subparsers.elementAt(j);
+			if (j > 0 && !t.qualifies(b.peek())) {
+				return null;
+			}
+			Object o = b.nextElement();
+			if (b.arena != null) {
+				b.arena.leaf(t, b);
+			}
+			if (!t.discard) {
+				b.push(o);
+			}
+			if (t.assembler != null) {
+				b.assemble(t.assembler);
+			}
+		}
+		return b;
+	}
+}
@@ -21,6 +21,9 @@
 
 package sjm.parse.tokens;
 
+import java.util.*;
+import sjm.parse.*;
+
 public class CaselessLiteral extends Literal {
 	
 	/**
@@ -49,4 +52,16 @@ public class CaselessLiteral extends Literal {
 	protected boolean qualifies(Object o) {
 		return literal.equalsIgnoreCase((Token) o);
 	}
+	
+	/**
+	 * Returns a caseless keyword set of the given terminals, if 
+	 * they are all caseless literals that match different tokens.
+	 * 
+	 * @param Vector the terminals to unite, this one among them
+	 * 
+	 * @return a keyword set of the terminals, or null
+	 */
+	public Terminal union(Vector terminals) {
+		return KeywordSet.union(terminals, true);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,363 @@
+/*
+ * @(#)IncrementalParser.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse.tokens;
+
+import java.io.*;
+import sjm.parse.*;
+
+public class IncrementalParser {
+	
+	/*
+	 * the end of each token in the text, one past its last 
+	 * character
+	 */
+	protected int[] ends;
+	
+	/*
+	 * for each token, one past the last character the tokenizer 
+	 * read to find it
+	 */
+	protected int[] looked;
+	
+	/*
+	 * the results of earlier parses, kept across edits
+	 */
+	protected PackratMemo memo = new PackratMemo();
+	
+	/*
+	 * the parser to match
+	 */
+	protected Parser parser;
+	
+	/*
+	 * the text, or null if edits replace tokens
+	 */
+	protected StringBuffer text;
+	
+	/*
+	 * the tokenizer for the text
+	 */
+	protected Tokenizer tokenizer;
+	
+	/*
+	 * the tokens parses run on
+	 */
+	protected TokenBuffer tokens = new TokenBuffer();
+	
+	/*
+	 * A reader of the text from a given position that keeps track 
+	 * of the position, and of how far it has read. Tokenizer 
+	 * states only ever unread the characters they just read, 
+	 * including what they made of the end of the text, so reading 
+	 * past the end counts as a move too.
+	 */
+	protected static class TextReader extends PushbackReader {
+		protected CharSequence text;
+		protected int position;
+		protected int looked;
+
+		protected TextReader(CharSequence text, int position) {
+			super(new StringReader(""));
+			this.text = text;
+			this.position = position;
+			this.looked = position;
+		}
+
+		public int read() {
+			looked = Math.max(looked, position + 1);
+			if (position >= text.length()) {
+				position++;
+				return -1;
+			}
+			return text.charAt(position++);
+		}
+
+		public void unread(int c) {
+			position--;
+		}
+	}
+	
+	/**
+	 * Constructs an incremental parse of the given text with the 
+	 * given parser, tokenizing with a default tokenizer.
+	 * 
+	 * @param Parser the parser to match
+	 * 
+	 * @param String the text to parse
+	 */
+	public IncrementalParser(Parser p, String text) {
+		this(p, new Tokenizer(), text);
+	}
+	
+	/**
+	 * Constructs an incremental parse of the given text with the 
+	 * given parser and tokenizer.
+	 * 
+	 * @param Parser the parser to match
+	 * 
+	 * @param Tokenizer the tokenizer for the text
+	 * 
+	 * @param String the text to parse
+	 */
+	public IncrementalParser(Parser p, Tokenizer tokenizer, String text) {
+		this.parser = p;
+		this.tokenizer = tokenizer;
+		this.text = new StringBuffer(text);
+		ends = new int[0];
+		looked = new int[0];
+		retokenize(0, 0, 0);
+	}
+	
+	/**
+	 * Constructs an incremental parse of the given tokens with the 
+	 * given parser. Edits to such a parse replace tokens.
+	 * 
+	 * @param Parser the parser to match
+	 * 
+	 * @param TokenString the tokens to parse
+	 */
+	public IncrementalParser(Parser p, TokenString tokens) {
+		this.parser = p;
+		int n = tokens.length();
+		for (int i = 0; i < n; i++) {
+			this.tokens.add(tokens.tokenAt(i));
+		}
+	}
+	
+	/**
+	 * Returns the assembly that results from matching the parser 
+	 * against the current tokens with the greatest number of 
+	 * tokens consumed, or null if the parser cannot match. 
+	 * Results from earlier parses that no edit since has touched 
+	 * are replayed rather than matched again. The assembly is on 
+	 * the tokens of this parse, and is out of date after the next 
+	 * edit.
+	 * 
+	 * @return the best match of the current tokens
+	 */
+	public Assembly bestMatch() {
+		Assembly a = new TokenAssembly(tokens);
+		a.setMemo(memo);
+		return parser.bestMatch(a);
+	}
+	
+	/**
+	 * Returns the best match of the current tokens if it consumes 
+	 * them all, and null otherwise.
+	 * 
+	 * @return a complete match of the current tokens, or null
+	 */
+	public Assembly completeMatch() {
+		Assembly best = bestMatch();
+		if (best != null && !best.hasMoreElements()) {
+			return best;
+		}
+		return null;
+	}
+	
+	/*
+	 * Returns the index of the first token the tokenizer may find 
+	 * differently after a change to the text at the given 
+	 * position: the first token it read at or past there to find.
+	 */
+	protected int damaged(int start) {
+		int lo = 0;
+		int hi = tokens.length();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ends[mid] < start) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		while (lo > 0 && looked[lo - 1] > start) {
+			lo--;
+		}
+		return lo;
+	}
+	
+	/**
+	 * Replaces the text from <code>start</code> up to 
+	 * <code>end</code> with the given text. Only the tokens the 
+	 * change can affect are tokenized again, up to the first new 
+	 * token that ends where an old token ended, and the next parse 
+	 * matches again only where the parser looked at a changed 
+	 * token.
+	 * 
+	 * @param int the position of the first character to replace
+	 * 
+	 * @param int the position just past the last character to 
+	 *        replace
+	 * 
+	 * @param String the text to put in their place
+	 * 
+	 * @exception IllegalStateException if this parse edits tokens 
+	 *            rather than text
+	 */
+	public void edit(int start, int end, String replacement) {
+		if (text == null) {
+			throw new IllegalStateException("Parse has no text");
+		}
+		if (start < 0 || start > end || end > text.length()) {
+			throw new IndexOutOfBoundsException(
+				"cannot replace " + start + " to " + end 
+				+ " of " + text.length() + " characters");
+		}
+		int from = damaged(start);
+		text.replace(start, end, replacement);
+		retokenize(from, start + replacement.length(), 
+			replacement.length() - (end - start));
+	}
+	
+	/**
+	 * Replaces the tokens from <code>from</code> up to 
+	 * <code>to</code> with the given tokens. The next parse 
+	 * matches again only where the parser looked at a replaced 
+	 * token.
+	 * 
+	 * @param int the index of the first token to replace
+	 * 
+	 * @param int the index just past the last token to replace
+	 * 
+	 * @param Token[] the tokens to put in their place
+	 * 
+	 * @exception IllegalStateException if this parse edits text 
+	 *            rather than tokens
+	 */
+	public void editTokens(int from, int to, Token[] with) {
+		if (text != null) {
+			throw new IllegalStateException("Parse edits text");
+		}
+		tokens.replace(from, to, with);
+		memo.edit(from, to, with.length);
+	}
+	
+	/**
+	 * Returns the memo that keeps results across edits.
+	 * 
+	 * @return the memo of this parse
+	 */
+	public PackratMemo getMemo() {
+		return memo;
+	}
+	
+	/**
+	 * Returns the text, or null if this parse edits tokens.
+	 * 
+	 * @return the text being parsed
+	 */
+	public String getText() {
+		return text == null ? null : text.toString();
+	}
+	
+	/**
+	 * Returns the tokens being parsed.
+	 * 
+	 * @return the tokens being parsed
+	 */
+	public TokenString getTokens() {
+		return tokens;
+	}
+	
+	/*
+	 * Returns a copy of the given array with twice its room.
+	 */
+	protected static int[] grow(int[] a, int n) {
+		int[] bigger = new int[Math.max(4, n * 2)];
+		System.arraycopy(a, 0, bigger, 0, n);
+		return bigger;
+	}
+	
+	/*
+	 * Tokenize the text again from the start of the given token 
+	 * until a new token ends, at or past the given position, where 
+	 * an old one ended before the text moved by the given amount, 
+	 * and put the new tokens in place of the old.
+	 */
+	protected void retokenize(int from, int changed, int delta) {
+		int n = tokens.length();
+		TextReader r = new TextReader(text, from == 0 ? 0 : ends[from - 1]);
+		tokenizer.setReader(r);
+		TokenBuffer fresh = new TokenBuffer();
+		int[] freshEnds = new int[4];
+		int[] freshLooked = new int[4];
+		int to = from;
+		while (true) {
+			r.looked = r.position;
+			Token t;
+			try {
+				t = tokenizer.nextToken();
+			} catch (IOException e) {
+				throw new InternalError("Problem tokenizing string: " + e);
+			}
+			if (t.ttype() == Token.TT_EOF) {
+				to = n;
+				break;
+			}
+			int i = fresh.length();
+			if (i == freshEnds.length) {
+				freshEnds = grow(freshEnds, i);
+				freshLooked = grow(freshLooked, i);
+			}
+			fresh.add(t);
+			freshEnds[i] = r.position;
+			freshLooked[i] = r.looked;
+			if (r.position >= changed) {
+				int old = r.position - delta;
+				while (to < n && ends[to] < old) {
+					to++;
+				}
+				if (to < n && ends[to] == old) {
+					to++;
+					break;
+				}
+			}
+		}
+		int m = fresh.length();
+		Token[] with = new Token[m];
+		for (int i = 0; i < m; i++) {
+			with[i] = fresh.tokenAt(i);
+		}
+		ends = splice(ends, n, from, to, freshEnds, m, delta);
+		looked = splice(looked, n, from, to, freshLooked, m, delta);
+		tokens.replace(from, to, with);
+		memo.edit(from, to, m);
+	}
+	
+	/*
+	 * Returns the first n entries of the given array with those 
+	 * from one index up to another replaced, and the ones after 
+	 * them moved by delta.
+	 */
+	protected static int[] splice(
+		int[] a, int n, int from, int to, int[] with, int m, int delta) {
+		
+		int[] b = new int[n - (to - from) + m];
+		System.arraycopy(a, 0, b, 0, from);
+		System.arraycopy(with, 0, b, from, m);
+		for (int i = to; i < n; i++) {
+			b[i - to + from + m] = a[i] + delta;
+		}
+		return b;
+	}
+}
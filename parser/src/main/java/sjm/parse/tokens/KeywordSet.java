@@ -0,0 +1,251 @@
+/*
+ * @(#)KeywordSet.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse.tokens;
+
+import java.util.*;
+import sjm.parse.*;
+
+public class KeywordSet extends Terminal {
+	
+	/*
+	 * whether this set disregards case
+	 */
+	protected boolean caseless;
+	
+	/*
+	 * the keywords, each a literal, in the order they were added
+	 */
+	protected Vector keywords = new Vector();
+	
+	/*
+	 * each keyword, under the token it matches, folded to lower 
+	 * case if this set disregards case
+	 */
+	protected HashMap table = new HashMap();
+	
+	/**
+	 * Constructs an empty set of keywords that match with 
+	 * attention to case.
+	 */
+	public KeywordSet() {
+		this(false);
+	}
+	
+	/**
+	 * Constructs an empty set of keywords.
+	 * 
+	 * @param boolean true, if the keywords should match 
+	 *        disregarding case
+	 */
+	public KeywordSet(boolean caseless) {
+		this.caseless = caseless;
+	}
+	
+	/**
+	 * Adds a keyword to this set. The set matches the keyword as 
+	 * the literal would: it pushes the matched token unless the 
+	 * literal discards it, and then lets the literal's assembler 
+	 * work on the assembly.
+	 * 
+	 * @param Literal the keyword to add
+	 * 
+	 * @return this
+	 * 
+	 * @exception IllegalArgumentException if the set already has 
+	 *            a keyword that matches the same tokens
+	 */
+	public KeywordSet add(Literal keyword) {
+		Object key = key(keyword.literal);
+		if (table.containsKey(key)) {
+			throw new IllegalArgumentException(
+				"Keyword set already has " + key);
+		}
+		table.put(key, keyword);
+		keywords.addElement(keyword);
+		return this;
+	}
+	
+	/**
+	 * Adds a keyword to this set.
+	 * 
+	 * @param String the keyword to add
+	 * 
+	 * @return this
+	 * 
+	 * @exception IllegalArgumentException if the set already has 
+	 *            a keyword that matches the same tokens
+	 */
+	public KeywordSet add(String keyword) {
+		return add(caseless 
+			? new CaselessLiteral(keyword) : new Literal(keyword));
+	}
+	
+	/**
+	 * Returns the keywords of this set, in the order they were 
+	 * added.
+	 * 
+	 * @return a vector of literals
+	 */
+	public Vector getKeywords() {
+		return keywords;
+	}
+	
+	/*
+	 * Returns the key this set files a token under.
+	 */
+	protected Object key(Token t) {
+		return caseless ? t.lookaheadKey() : t;
+	}
+	
+	/*
+	 * Returns the keyword that matches the given element, or null.
+	 */
+	protected Literal keyword(Object o) {
+		if (!(o instanceof Token)) {
+			return null;
+		}
+		return (Literal) table.get(key((Token) o));
+	}
+	
+	/**
+	 * Returns the keys of the tokens the keywords match, with 
+	 * their case folded.
+	 * 
+	 * @return the lookahead keys of the keywords
+	 */
+	public Object[] lookaheadKeys() {
+		int n = keywords.size();
+		Object[] keys = new Object[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = ((Literal) keywords.elementAt(i)).literal.lookaheadKey();
+		}
+		return keys;
+	}
+	
+	/**
+	 * Returns a copy of the given assembly advanced past its next 
+	 * token, if the token is one of the keywords, with the token 
+	 * pushed and the keyword's assembler applied as the keyword's 
+	 * literal would do. Returns null if the token is not a 
+	 * keyword.
+	 * 
+	 * @param Assembly the assembly to match against
+	 * 
+	 * @return a copy of the incoming assembly, advanced by this 
+	 *         terminal, or null
+	 */
+	protected Assembly matchOneAssembly(Assembly in) {
+		if (!in.hasMoreElements()) {
+			return null;
+		}
+		Literal keyword = keyword(in.peek());
+		if (keyword == null) {
+			return null;
+		}
+		Assembly out = (Assembly) in.clone();
+		Object o = out.nextElement();
+		SyntaxArena arena = out.getArena();
+		if (arena != null) {
+			arena.leaf(keyword, out);
+		}
+		if (!discard && !keyword.isDiscard()) {
+			out.push(o);
+		}
+		if (keyword.getAssembler() != null) {
+			out.assemble(keyword.getAssembler());
+		}
+		return out;
+	}
+	
+	/**
+	 * Returns true if the given element is one of the keywords.
+	 * 
+	 * @param object an element from an assembly
+	 * 
+	 * @return true, if the element is one of the keywords
+	 */
+	protected boolean qualifies(Object o) {
+		return keyword(o) != null;
+	}
+	
+	/**
+	 * Returns a collection holding one of the keywords, picked at 
+	 * random.
+	 */
+	public Vector randomExpansion(int maxDepth, int depth) {
+		Vector v = new Vector();
+		if (!keywords.isEmpty()) {
+			int i = (int) (keywords.size() * Math.random());
+			v.addElement(((Literal) keywords.elementAt(i)).literal.toString());
+		}
+		return v;
+	}
+	
+	/**
+	 * Returns a keyword set of the given literals, or null if 
+	 * they are not all of the given class, if any of them drops 
+	 * duplicates, or if two of them match the same token. A set 
+	 * returned matches each token at most once, as the 
+	 * alternation of the literals would.
+	 * 
+	 * @param Vector the literals to put in a set
+	 * 
+	 * @param boolean true, for a set of caseless literals
+	 * 
+	 * @return a keyword set of the literals, or null
+	 */
+	public static KeywordSet union(Vector literals, boolean caseless) {
+		Class c = caseless ? CaselessLiteral.class : Literal.class;
+		KeywordSet set = new KeywordSet(caseless);
+		int n = literals.size();
+		for (int i = 0; i < n; i++) {
+			Object o = literals.elementAt(i);
+			if (o.getClass() != c) {
+				return null;
+			}
+			Literal keyword = (Literal) o;
+			if (keyword.isDeduplicate() 
+				|| set.table.containsKey(set.key(keyword.literal))) {
+				
+				return null;
+			}
+			set.add(keyword);
+		}
+		return set;
+	}
+	
+	/*
+	 * Returns a textual description of this parser.
+	 */
+	protected String unvisitedString(Vector visited) {
+		StringBuffer buf = new StringBuffer("<");
+		int n = keywords.size();
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				buf.append("|");
+			}
+			buf.append(keywords.elementAt(i));
+		}
+		buf.append(">");
+		return buf.toString();
+	}
+}
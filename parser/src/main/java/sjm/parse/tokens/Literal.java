@@ -43,6 +43,16 @@ public class Literal extends Terminal {
 		literal = new Token(s);
 	}
 
+	/**
+	 * Returns the key of the one token this literal matches, with 
+	 * its case folded so that a caseless literal shares it.
+	 * 
+	 * @return the lookahead key of this literal's token
+	 */
+	public Object[] lookaheadKeys() {
+		return new Object[] {literal.lookaheadKey()};
+	}
+	
 	/**
 	 * Returns true if the literal this object equals an assembly's next
 	 * element.
@@ -57,6 +67,18 @@ public class Literal extends Terminal {
 		return literal.equals((Token) o);
 	}
 
+	/**
+	 * Returns a keyword set of the given terminals, if they are 
+	 * all literals like this one that match different tokens.
+	 * 
+	 * @param Vector the terminals to unite, this one among them
+	 * 
+	 * @return a keyword set of the terminals, or null
+	 */
+	public Terminal union(Vector terminals) {
+		return KeywordSet.union(terminals, false);
+	}
+	
 	/**
 	 * Returns a textual description of this parser.
 	 * 
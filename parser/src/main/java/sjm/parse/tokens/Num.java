@@ -26,6 +26,16 @@ import sjm.parse.*;
 
 public class Num extends Terminal {
 
+	/**
+	 * Returns the number token type, which every number is filed 
+	 * under.
+	 * 
+	 * @return the lookahead key of numbers
+	 */
+	public Object[] lookaheadKeys() {
+		return new Object[] {Token.TT_NUMBER};
+	}
+	
 	/**
 	 * Returns true if an assembly's next element is a number.
 	 * 
@@ -24,25 +24,33 @@ package sjm.parse.tokens;
 import java.io.*;
 
 public class NumberState extends TokenizerState {
-	protected int c;
-	protected double value;
-	protected boolean absorbedLeadingMinus;
-	protected boolean absorbedDot;
-	protected boolean gotAdigit;
+	
+	/*
+	 * What one call has read of a number so far. Each call gets 
+	 * its own, so tokenizers that share this state can read at 
+	 * the same time.
+	 */
+	protected static class Scan {
+		protected int c;
+		protected double value;
+		protected boolean absorbedLeadingMinus;
+		protected boolean absorbedDot;
+		protected boolean gotAdigit;
+	}
 
 	/*
 	 * Convert a stream of digits into a number, making this number a fraction
 	 * if the boolean parameter is true.
 	 */
-	protected double absorbDigits(PushbackReader r, boolean fraction)
+	protected double absorbDigits(PushbackReader r, Scan s, boolean fraction)
 			throws IOException {
 
 		int divideBy = 1;
 		double v = 0;
-		while ('0' <= c && c <= '9') {
-			gotAdigit = true;
-			v = v * 10 + (c - '0');
-			c = r.read();
+		while ('0' <= s.c && s.c <= '9') {
+			s.gotAdigit = true;
+			v = v * 10 + (s.c - '0');
+			s.c = r.read();
 			if (fraction) {
 				divideBy *= 10;
 			}
@@ -61,68 +69,67 @@ public class NumberState extends TokenizerState {
 	public Token nextToken(PushbackReader r, int cin, Tokenizer t)
 			throws IOException {
 
-		reset(cin);
-		parseLeft(r);
-		parseRight(r);
-		r.unread(c);
-		return value(r, t);
+		Scan s = reset(cin);
+		parseLeft(r, s);
+		parseRight(r, s);
+		r.unread(s.c);
+		return value(r, s, t);
 	}
 
 	/*
 	 * Parse up to a decimal point.
 	 */
-	protected void parseLeft(PushbackReader r) throws IOException {
+	protected void parseLeft(PushbackReader r, Scan s) throws IOException {
 
-		if (c == '-') {
-			c = r.read();
-			absorbedLeadingMinus = true;
+		if (s.c == '-') {
+			s.c = r.read();
+			s.absorbedLeadingMinus = true;
 		}
-		value = absorbDigits(r, false);
+		s.value = absorbDigits(r, s, false);
 	}
 
 	/*
 	 * Parse from a decimal point to the end of the number.
 	 */
-	protected void parseRight(PushbackReader r) throws IOException {
+	protected void parseRight(PushbackReader r, Scan s) throws IOException {
 
-		if (c == '.') {
-			c = r.read();
-			absorbedDot = true;
-			value += absorbDigits(r, true);
+		if (s.c == '.') {
+			s.c = r.read();
+			s.absorbedDot = true;
+			s.value += absorbDigits(r, s, true);
 		}
 	}
 
 	/*
 	 * Prepare to assemble a new number.
 	 */
-	protected void reset(int cin) {
-		c = cin;
-		value = 0;
-		absorbedLeadingMinus = false;
-		absorbedDot = false;
-		gotAdigit = false;
+	protected Scan reset(int cin) {
+		Scan s = new Scan();
+		s.c = cin;
+		return s;
 	}
 
 	/*
 	 * Put together the pieces of a number.
 	 */
-	protected Token value(PushbackReader r, Tokenizer t) throws IOException {
+	protected Token value(PushbackReader r, Scan s, Tokenizer t) 
+			throws IOException {
 
-		if (!gotAdigit) {
-			if (absorbedLeadingMinus && absorbedDot) {
+		if (!s.gotAdigit) {
+			if (s.absorbedLeadingMinus && s.absorbedDot) {
 				r.unread('.');
-				return t.symbolState().nextToken(r, '-', t);
+				return t.symbolState.nextToken(r, '-', t);
 			}
-			if (absorbedLeadingMinus) {
-				return t.symbolState().nextToken(r, '-', t);
+			if (s.absorbedLeadingMinus) {
+				return t.symbolState.nextToken(r, '-', t);
 			}
-			if (absorbedDot) {
-				return t.symbolState().nextToken(r, '.', t);
+			if (s.absorbedDot) {
+				return t.symbolState.nextToken(r, '.', t);
 			}
 		}
-		if (absorbedLeadingMinus) {
-			value = -value;
+		if (s.absorbedLeadingMinus) {
+			s.value = -s.value;
 		}
-		return new Token(Token.TT_NUMBER, "", value);
+		return new Token(Token.TT_NUMBER, "", s.value);
 	}
-}
\ No newline at end of file
+}
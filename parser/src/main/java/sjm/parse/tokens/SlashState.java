@@ -29,6 +29,19 @@ public class SlashState extends TokenizerState {
 
 	protected SlashSlashState slashSlashState = new SlashSlashState();
 
+	/**
+	 * Returns a copy of this state with copies of its 
+	 * comment-handling states.
+	 * 
+	 * @return a copy of this state
+	 */
+	protected TokenizerState copy() {
+		SlashState s = (SlashState) super.copy();
+		s.slashStarState = (SlashStarState) slashStarState.copy();
+		s.slashSlashState = (SlashSlashState) slashSlashState.copy();
+		return s;
+	}
+
 	/**
 	 * Either delegate to a comment-handling state, or return a token with just
 	 * a slash in it.
@@ -61,6 +61,15 @@ public class Symbol extends Terminal {
 		symbol = new Token(Token.TT_SYMBOL, s, 0);
 	}
 	
+	/**
+	 * Returns the key of the one token this symbol matches.
+	 *
+	 * @return   the lookahead key of this symbol's token
+	 */
+	public Object[] lookaheadKeys() {
+		return new Object[] {symbol.lookaheadKey()};
+	}
+	
 	/**
 	 * Returns true if the symbol this object represents equals an
 	 * assembly's next element.
@@ -66,6 +66,20 @@ public class SymbolNode {
 		return parent.ancestry() + myChar;
 	}
 
+	/*
+	 * Returns a copy of this node and its descendants, under the given
+	 * parent.
+	 */
+	protected SymbolNode copy(SymbolNode parent) {
+		SymbolNode n = new SymbolNode(parent, myChar);
+		n.valid = valid;
+		Enumeration e = children.elements();
+		while (e.hasMoreElements()) {
+			n.children.addElement(((SymbolNode) e.nextElement()).copy(n));
+		}
+		return n;
+	}
+
 	/*
 	 * Find the descendant that takes as many characters as possible from the
 	 * input.
@@ -57,6 +57,17 @@ public class SymbolRootNode extends SymbolNode {
 		return "";
 	}
 
+	/*
+	 * Returns a copy of this tree, sharing no nodes with it.
+	 */
+	protected SymbolRootNode copy() {
+		SymbolRootNode root = new SymbolRootNode();
+		for (int i = 0; i < children.length; i++) {
+			root.children[i] = children[i].copy(root);
+		}
+		return root;
+	}
+
 	/*
 	 * A root node maintains its children in an array instead of a Vector, to be
 	 * faster.
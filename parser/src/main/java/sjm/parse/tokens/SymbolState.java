@@ -50,6 +50,17 @@ public class SymbolState extends TokenizerState {
 		symbols.add(s);
 	}
 
+	/**
+	 * Returns a copy of this state with its own tree of symbols.
+	 * 
+	 * @return a copy of this state
+	 */
+	protected TokenizerState copy() {
+		SymbolState s = (SymbolState) super.copy();
+		s.symbols = symbols.copy();
+		return s;
+	}
+
 	/**
 	 * Return a symbol token from a reader.
 	 *
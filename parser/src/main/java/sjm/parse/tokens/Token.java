@@ -25,6 +25,12 @@ public class Token {
 	protected TokenType ttype;
 	protected String sval;
 	protected double nval;
+	
+	/*
+	 * this token with its string folded to lower case, made 
+	 * the first time someone asks for it
+	 */
+	protected Token lookaheadKey;
 
 	/** 
 	 * A constant indicating that the end of the stream has 
@@ -168,6 +174,20 @@ public class Token {
 		return sval.equalsIgnoreCase(t.sval);
 	}
 	
+	/**
+	 * Returns a hash code that agrees with <code>equals()</code>.
+	 *
+	 * @return   a hash code for this token
+	 */
+	public int hashCode() {
+		if (ttype == TT_NUMBER) {
+			// 0.0 and -0.0 are equal, so they must hash alike
+			long bits = nval == 0 ? 0 : Double.doubleToLongBits(nval);
+			return (int) (bits ^ (bits >>> 32));
+		}
+		return sval == null ? 0 : sval.hashCode();
+	}
+	
 	/**
 	 * Returns true if this token is a number.
 	 *
@@ -204,6 +224,39 @@ public class Token {
 		return ttype == TT_WORD;
 	}
 	
+	/**
+	 * Returns a token equal to this one with its string value 
+	 * folded to lower case. Tokens that are equal ignoring case 
+	 * have equal keys, which lets a lookahead table find the 
+	 * literals that might match this token with one hash lookup.
+	 * Each character folds as <code>equalsIgnoreCase()</code> 
+	 * compares it, so the key does not depend on the default 
+	 * locale.
+	 *
+	 * @return   this token with its string folded to lower case
+	 */
+	public Token lookaheadKey() {
+		if (lookaheadKey == null) {
+			lookaheadKey = this;
+			if (ttype != TT_NUMBER && sval != null) {
+				char[] folded = sval.toCharArray();
+				boolean changed = false;
+				for (int i = 0; i < folded.length; i++) {
+					char c = Character.toLowerCase(
+						Character.toUpperCase(folded[i]));
+					if (c != folded[i]) {
+						folded[i] = c;
+						changed = true;
+					}
+				}
+				if (changed) {
+					lookaheadKey = new Token(ttype, new String(folded), nval);
+				}
+			}
+		}
+		return lookaheadKey;
+	}
+	
 	/**
 	 * Returns the numeric value of this token.
 	 *
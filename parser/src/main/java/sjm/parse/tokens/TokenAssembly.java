@@ -119,7 +119,11 @@ public class TokenAssembly extends Assembly {
 	 *                if there are no more tokens in this tokenizer's string.
 	 */
 	public Object nextElement() {
-		return tokenString.tokenAt(index++);
+		Object o = tokenString.tokenAt(index++);
+		if (reach != null && index > reach[0]) {
+			reach[0] = index;
+		}
+		return o;
 	}
 
 	/**
@@ -136,6 +140,21 @@ public class TokenAssembly extends Assembly {
 		}
 	}
 
+	/**
+	 * Returns the keys a lookahead table may file a terminal 
+	 * under if the terminal might match the next token: the token 
+	 * with its string folded to lower case, and the token's type.
+	 *
+	 * @return   the lookahead keys of the next token
+	 */
+	public Object[] peekLookaheadKeys() {
+		if (index >= length()) {
+			return new Object[0];
+		}
+		Token t = tokenString.tokenAt(index);
+		return new Object[] {t.lookaheadKey(), t.ttype()};
+	}
+
 	/**
 	 * Returns a textual representation of the amount of this tokenAssembly that
 	 * remains to be consumed.
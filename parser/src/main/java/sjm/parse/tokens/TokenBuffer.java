@@ -0,0 +1,96 @@
+/*
+ * @(#)TokenBuffer.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse.tokens;
+
+public class TokenBuffer extends TokenString {
+	
+	/*
+	 * how many slots of the array hold tokens
+	 */
+	protected int size;
+	
+	/**
+	 * Constructs an empty buffer.
+	 */
+	public TokenBuffer() {
+		super(new Token[16]);
+	}
+	
+	/**
+	 * Adds a token to the end of this buffer. Token assemblies on 
+	 * this buffer see the token as soon as it is added.
+	 * 
+	 * @param Token the token to add
+	 */
+	public void add(Token t) {
+		if (size == tokens.length) {
+			Token[] bigger = new Token[size * 2];
+			System.arraycopy(tokens, 0, bigger, 0, size);
+			tokens = bigger;
+		}
+		tokens[size++] = t;
+	}
+	
+	/**
+	 * Returns the number of tokens added so far.
+	 * 
+	 * @return the number of tokens in this buffer
+	 */
+	public int length() {
+		return size;
+	}
+	
+	/**
+	 * Replaces the tokens from <code>from</code> up to 
+	 * <code>to</code> with the given tokens, moving the tokens 
+	 * after them along.
+	 * 
+	 * @param int the index of the first token to replace
+	 * 
+	 * @param int the index just past the last token to replace
+	 * 
+	 * @param Token[] the tokens to put in their place
+	 * 
+	 * @exception IndexOutOfBoundsException if the range is not 
+	 *            within this buffer
+	 */
+	public void replace(int from, int to, Token[] with) {
+		if (from < 0 || from > to || to > size) {
+			throw new IndexOutOfBoundsException(
+				"cannot replace " + from + " to " + to 
+				+ " of " + size + " tokens");
+		}
+		int grown = size - (to - from) + with.length;
+		Token[] target = tokens;
+		if (grown > tokens.length) {
+			target = new Token[Math.max(grown, size * 2)];
+			System.arraycopy(tokens, 0, target, 0, from);
+		}
+		System.arraycopy(tokens, to, target, from + with.length, size - to);
+		System.arraycopy(with, 0, target, from, with.length);
+		for (int i = grown; i < size; i++) {
+			target[i] = null;
+		}
+		tokens = target;
+		size = grown;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * @(#)TokenFeed.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse.tokens;
+
+import java.io.*;
+import java.util.*;
+import sjm.parse.*;
+
+public class TokenFeed {
+	
+	/*
+	 * the tokens that have arrived
+	 */
+	protected TokenBuffer buffer = new TokenBuffer();
+	
+	/*
+	 * the parse the tokens go to
+	 */
+	protected PushParser parse;
+	
+	/*
+	 * the tokenizer for text that arrives in chunks
+	 */
+	protected Tokenizer tokenizer;
+	
+	/*
+	 * text that has arrived but may end in part of a token
+	 */
+	protected StringBuffer pending = new StringBuffer();
+	
+	/**
+	 * Constructs a feed of tokens into a parse of the given 
+	 * parser, tokenizing text with a default tokenizer.
+	 * 
+	 * @param Parser the parser to match
+	 */
+	public TokenFeed(Parser p) {
+		this(p, new Tokenizer());
+	}
+	
+	/**
+	 * Constructs a feed of tokens into a parse of the given 
+	 * parser, tokenizing text with the given tokenizer.
+	 * 
+	 * @param Parser the parser to match
+	 * 
+	 * @param Tokenizer the tokenizer for text
+	 */
+	public TokenFeed(Parser p, Tokenizer tokenizer) {
+		this.tokenizer = tokenizer;
+		parse = new PushParser(p, new TokenAssembly(buffer));
+	}
+	
+	/**
+	 * Tokenizes any text still waiting and tells the parse that 
+	 * no more tokens will arrive.
+	 */
+	public void end() {
+		tokenize(pending.length());
+		parse.end();
+	}
+	
+	/**
+	 * Returns the tokens that have arrived.
+	 * 
+	 * @return the tokens that have arrived
+	 */
+	public TokenBuffer getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * Returns the parse the tokens go to, which holds its results.
+	 * 
+	 * @return the parse the tokens go to
+	 */
+	public PushParser getParse() {
+		return parse;
+	}
+	
+	/*
+	 * Returns true if the given character starts whitespace in the 
+	 * tokenizer.
+	 */
+	protected boolean isWhitespace(char c) {
+		return c < tokenizer.characterState.length 
+			&& tokenizer.characterState[c] instanceof WhitespaceState;
+	}
+	
+	/**
+	 * Adds a token to the input and lets the parse go as far as it 
+	 * can.
+	 * 
+	 * @param Token the token that has arrived
+	 */
+	public void push(Token t) {
+		buffer.add(t);
+		parse.resume();
+	}
+	
+	/**
+	 * Adds a chunk of text to the input. The text is tokenized up 
+	 * to the last whitespace the tokenizer skips between tokens, 
+	 * and those tokens go to the parse at once; the rest waits for 
+	 * the next chunk, since it may be the start of a longer token. 
+	 * Whitespace inside a comment or a quoted string does not end 
+	 * the text given to the parse, nor does whitespace that a 
+	 * tokenizer with spaces in words reads as part of a word.
+	 * 
+	 * @param String the text that has arrived
+	 */
+	public void push(String chunk) {
+		pending.append(chunk);
+		IncrementalParser.TextReader r = 
+			new IncrementalParser.TextReader(pending, 0);
+		tokenizer.setReader(r);
+		Vector tokens = new Vector();
+		int cut = 0;
+		int ready = 0;
+		try {
+			for (Token t = tokenizer.nextToken(); t.ttype() != Token.TT_EOF; 
+				t = tokenizer.nextToken()) {
+				
+				tokens.addElement(t);
+				if (r.position < pending.length() 
+					&& isWhitespace(pending.charAt(r.position))) {
+					
+					cut = r.position;
+					ready = tokens.size();
+				}
+			}
+		} catch (IOException e) {
+			throw new InternalError("Problem tokenizing string: " + e);
+		}
+		if (ready > 0) {
+			pending.delete(0, cut);
+			for (int i = 0; i < ready; i++) {
+				buffer.add((Token) tokens.elementAt(i));
+			}
+			parse.resume();
+		}
+	}
+	
+	/*
+	 * Tokenize the given number of waiting characters into the 
+	 * buffer.
+	 */
+	protected void tokenize(int n) {
+		tokenizer.setString(pending.substring(0, n));
+		pending.delete(0, n);
+		try {
+			for (Token t = tokenizer.nextToken(); t.ttype() != Token.TT_EOF; 
+				t = tokenizer.nextToken()) {
+				
+				buffer.add(t);
+			}
+		} catch (IOException e) {
+			throw new InternalError("Problem tokenizing string: " + e);
+		}
+	}
+}
@@ -110,7 +110,8 @@ public class TokenString {
 	 */
 	public String toString() {
 		StringBuffer buf = new StringBuffer();
-		for (int i = 0; i < tokens.length; i++) {
+		int n = length();
+		for (int i = 0; i < n; i++) {
 			if (i > 0) {
 				buf.append(" ");
 			}
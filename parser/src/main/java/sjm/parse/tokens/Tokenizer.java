@@ -22,6 +22,7 @@
 package sjm.parse.tokens;
 
 import java.io.*;
+import java.util.*;
 
 public class Tokenizer {
 
@@ -38,19 +39,30 @@ public class Tokenizer {
 	/**
 	 * The state lookup table
 	 */
-	protected TokenizerState[] characterState = new TokenizerState[256];
+	protected TokenizerState[] characterState;
+	
+	/*
+	 * Whether the state table and states belong to a 
+	 * configuration, and must be copied before they can change
+	 */
+	protected boolean shared = false;
 	
 	/**
 	 * The default states that actually consume text and 
 	 * produce a token
 	 */
-	protected NumberState numberState = new NumberState();
-	protected QuoteState quoteState = new QuoteState();
-	protected SlashState slashState = new SlashState();
-	protected SymbolState symbolState = new SymbolState();
-	protected WhitespaceState whitespaceState = 
-		new WhitespaceState();
-	protected WordState wordState = new WordState();
+	protected NumberState numberState;
+	protected QuoteState quoteState;
+	protected SlashState slashState;
+	protected SymbolState symbolState;
+	protected WhitespaceState whitespaceState;
+	protected WordState wordState;
+	
+	/*
+	 * Room for the characters of the token being read, for 
+	 * states that build tokens a character at a time
+	 */
+	protected char[] charbuf = new char[16];
 	
 	/**
 	 * Constructs a tokenizer with a default state table (as
@@ -60,6 +72,14 @@ public class Tokenizer {
 	 */
 	public Tokenizer() {
 		
+		characterState = new TokenizerState[256];
+		numberState = new NumberState();
+		quoteState = new QuoteState();
+		slashState = new SlashState();
+		symbolState = new SymbolState();
+		whitespaceState = new WhitespaceState();
+		wordState = new WordState();
+		
 		setCharacterState(0, 255, symbolState());
 		setCharacterState(   0,   ' ', whitespaceState());
 		setCharacterState( 'a',   'z', wordState());
@@ -74,6 +94,27 @@ public class Tokenizer {
 		
 	}
 	
+	/**
+	 * Constructs a tokenizer that shares the state table and 
+	 * states of the given configuration. The tokenizer keeps only 
+	 * what it is reading, so making one is cheap, and any number 
+	 * of them can read at once from one configuration. Changing 
+	 * this tokenizer's state table, or asking it for one of its 
+	 * states, gives it copies of its own.
+	 * 
+	 * @param TokenizerConfiguration the configuration to share
+	 */
+	public Tokenizer(TokenizerConfiguration c) {
+		characterState = c.characterState;
+		shared = true;
+		numberState = c.numberState;
+		quoteState = c.quoteState;
+		slashState = c.slashState;
+		symbolState = c.symbolState;
+		whitespaceState = c.whitespaceState;
+		wordState = c.wordState;
+	}
+	
 	/**
 	 * Constructs a tokenizer to read from the supplied string.
 	 * 
@@ -84,6 +125,75 @@ public class Tokenizer {
 		setString(s);
 	}
 	
+	/**
+	 * Returns this tokenizer's buffer for the characters of the 
+	 * token being read, made at least as long as the given 
+	 * length. Growing the buffer keeps the characters in it.
+	 * 
+	 * @param int the length the buffer must have
+	 * 
+	 * @return a buffer at least as long as the given length
+	 */
+	public char[] charbuf(int length) {
+		if (length > charbuf.length) {
+			char nb[] = new char[Math.max(length, charbuf.length * 2)];
+			System.arraycopy(charbuf, 0, nb, 0, charbuf.length);
+			charbuf = nb;
+		}
+		return charbuf;
+	}
+	
+	/**
+	 * Returns a configuration with copies of this tokenizer's 
+	 * state table and states, which any number of tokenizers can 
+	 * share. Later changes to this tokenizer's table or states 
+	 * do not change the configuration.
+	 * 
+	 * @return a configuration with this tokenizer's state table 
+	 *         and states
+	 */
+	public TokenizerConfiguration configuration() {
+		return new TokenizerConfiguration(this);
+	}
+	
+	/*
+	 * Returns the copy of the given state in the given map of 
+	 * copies, making it if there is none yet.
+	 */
+	protected static TokenizerState copy(
+		TokenizerState state, IdentityHashMap copies) {
+		
+		if (state == null) {
+			return null;
+		}
+		TokenizerState c = (TokenizerState) copies.get(state);
+		if (c == null) {
+			c = state.copy();
+			copies.put(state, c);
+		}
+		return c;
+	}
+	
+	/*
+	 * Give this tokenizer copies of its state table and states, 
+	 * so that changing them changes no other tokenizer.
+	 */
+	protected void copyStates() {
+		IdentityHashMap copies = new IdentityHashMap();
+		TokenizerState[] table = new TokenizerState[characterState.length];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = copy(characterState[i], copies);
+		}
+		characterState = table;
+		numberState = (NumberState) copy(numberState, copies);
+		quoteState = (QuoteState) copy(quoteState, copies);
+		slashState = (SlashState) copy(slashState, copies);
+		symbolState = (SymbolState) copy(symbolState, copies);
+		whitespaceState = (WhitespaceState) copy(whitespaceState, copies);
+		wordState = (WordState) copy(wordState, copies);
+		shared = false;
+	}
+	
 	/**
 	 * Return the reader this tokenizer will read from.
 	 *
@@ -124,6 +234,9 @@ public class Tokenizer {
 	 * @return  the state this tokenizer uses to build numbers
 	 */
 	public NumberState numberState() {
+		if (shared) {
+			copyStates();
+		}
 		return numberState;
 	}
 	/**
@@ -134,6 +247,9 @@ public class Tokenizer {
 	 *          strings
 	 */
 	public QuoteState quoteState() {
+		if (shared) {
+			copyStates();
+		}
 		return quoteState;
 	}
 	
@@ -151,6 +267,9 @@ public class Tokenizer {
 	public void setCharacterState(
 		int from, int to, TokenizerState state) {
 		
+		if (shared) {
+			copyStates();
+		}
 		for (int i = from; i <= to; i++) {
 			if (i >= 0 && i < characterState.length) {
 				characterState[i] = state;
@@ -198,6 +317,9 @@ public class Tokenizer {
 	 *
 	 */
 	public SlashState slashState() {
+		if (shared) {
+			copyStates();
+		}
 		return slashState;
 	}
 	
@@ -209,6 +331,9 @@ public class Tokenizer {
 	 *          symbols
 	 */
 	public SymbolState symbolState() {
+		if (shared) {
+			copyStates();
+		}
 		return symbolState;
 	}
 	
@@ -220,6 +345,9 @@ public class Tokenizer {
 	 *          whitespace
 	 */
 	public WhitespaceState whitespaceState() {
+		if (shared) {
+			copyStates();
+		}
 		return whitespaceState;
 	}
 	
@@ -229,6 +357,9 @@ public class Tokenizer {
 	 * @return  the state this tokenizer uses to build words
 	 */
 	public WordState wordState() {
+		if (shared) {
+			copyStates();
+		}
 		return wordState;
 	}
 	
@@ -0,0 +1,103 @@
+/*
+ * @(#)TokenizerConfiguration.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse.tokens;
+
+import java.util.*;
+
+public class TokenizerConfiguration {
+	
+	/*
+	 * the state lookup table, which no one changes
+	 */
+	protected final TokenizerState[] characterState;
+	
+	/*
+	 * the states a tokenizer hands out
+	 */
+	protected final NumberState numberState;
+	protected final QuoteState quoteState;
+	protected final SlashState slashState;
+	protected final SymbolState symbolState;
+	protected final WhitespaceState whitespaceState;
+	protected final WordState wordState;
+	
+	/**
+	 * Constructs a configuration with copies of the given 
+	 * tokenizer's state table and states. Tokenizers made from 
+	 * the configuration share these copies until they ask to 
+	 * change them, so no one changes them.
+	 * 
+	 * @param Tokenizer the tokenizer to copy the configuration of
+	 */
+	public TokenizerConfiguration(Tokenizer t) {
+		IdentityHashMap copies = new IdentityHashMap();
+		characterState = new TokenizerState[t.characterState.length];
+		for (int i = 0; i < characterState.length; i++) {
+			characterState[i] = Tokenizer.copy(t.characterState[i], copies);
+		}
+		numberState = (NumberState) Tokenizer.copy(t.numberState, copies);
+		quoteState = (QuoteState) Tokenizer.copy(t.quoteState, copies);
+		slashState = (SlashState) Tokenizer.copy(t.slashState, copies);
+		symbolState = (SymbolState) Tokenizer.copy(t.symbolState, copies);
+		whitespaceState = (WhitespaceState) Tokenizer.copy(t.whitespaceState, copies);
+		wordState = (WordState) Tokenizer.copy(t.wordState, copies);
+	}
+	
+	/**
+	 * Returns a new tokenizer that shares this configuration.
+	 * 
+	 * @return a new tokenizer
+	 */
+	public Tokenizer newTokenizer() {
+		return new Tokenizer(this);
+	}
+	
+	/**
+	 * Returns a new tokenizer that shares this configuration and 
+	 * reads from the given string.
+	 * 
+	 * @param String the string to read from
+	 * 
+	 * @return a new tokenizer
+	 */
+	public Tokenizer newTokenizer(String s) {
+		Tokenizer t = new Tokenizer(this);
+		t.setString(s);
+		return t;
+	}
+	
+	/**
+	 * Returns the state that starts a token with the given 
+	 * character.
+	 * 
+	 * @param int a character
+	 * 
+	 * @return the state that starts a token with the character, 
+	 *         or null if the character is outside the table
+	 */
+	public TokenizerState state(int c) {
+		if (c >= 0 && c < characterState.length) {
+			return characterState[c];
+		}
+		return null;
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * @(#)TokenizerFactory.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.parse.tokens;
+
+import sjm.parse.*;
+
+public class TokenizerFactory extends AssemblyFactory {
+	
+	/*
+	 * each thread's tokenizer
+	 */
+	protected ThreadLocal tokenizers = new ThreadLocal() {
+		protected Object initialValue() {
+			return newTokenizer();
+		}
+	};
+	
+	/*
+	 * the configuration this factory's tokenizers share, if any
+	 */
+	protected TokenizerConfiguration configuration;
+	
+	/**
+	 * Constructs a factory whose tokenizers each have a default 
+	 * state table of their own.
+	 */
+	public TokenizerFactory() {
+	}
+	
+	/**
+	 * Constructs a factory whose tokenizers all share the given 
+	 * configuration.
+	 * 
+	 * @param TokenizerConfiguration the configuration to share
+	 */
+	public TokenizerFactory(TokenizerConfiguration configuration) {
+		this.configuration = configuration;
+	}
+	
+	/**
+	 * Returns a token assembly of the given text, tokenized by 
+	 * the calling thread's own tokenizer.
+	 * 
+	 * @param String the text to tokenize
+	 * 
+	 * @return a token assembly of the given text
+	 */
+	public Assembly assembly(String s) {
+		Tokenizer t = tokenizer();
+		t.setString(s);
+		return new TokenAssembly(t);
+	}
+	
+	/**
+	 * Returns a new tokenizer. Each thread that asks this factory 
+	 * for assemblies gets one tokenizer, made by this method, and 
+	 * keeps it. The tokenizer shares this factory's configuration, 
+	 * if it has one. Subclasses override this to configure 
+	 * tokenizers for their language.
+	 * 
+	 * @return a new tokenizer
+	 */
+	protected Tokenizer newTokenizer() {
+		if (configuration != null) {
+			return new Tokenizer(configuration);
+		}
+		return new Tokenizer();
+	}
+	
+	/**
+	 * Returns the calling thread's tokenizer.
+	 * 
+	 * @return the calling thread's tokenizer
+	 */
+	public Tokenizer tokenizer() {
+		return (Tokenizer) tokenizers.get();
+	}
+}
@@ -23,7 +23,23 @@ package sjm.parse.tokens;
 
 import java.io.*;
 
-public abstract class TokenizerState {
+public abstract class TokenizerState implements Cloneable {
+	
+	/**
+	 * Returns a copy of this state that a tokenizer can change 
+	 * without changing this state. States that keep their 
+	 * settings in objects of their own copy those objects too.
+	 * 
+	 * @return a copy of this state
+	 */
+	protected TokenizerState copy() {
+		try {
+			return (TokenizerState) clone();
+		} catch (CloneNotSupportedException e) {
+			// this should not happen, since we are Cloneable
+			throw new InternalError();
+		}
+	}
 
 	/**
 	 * Return a token that represents a logical piece of a reader.
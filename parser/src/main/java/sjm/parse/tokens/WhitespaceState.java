@@ -37,6 +37,18 @@ public class WhitespaceState extends TokenizerState {
 		setWhitespaceChars(0, ' ', true);
 	}
 
+	/**
+	 * Returns a copy of this state with its own table of 
+	 * whitespace characters.
+	 * 
+	 * @return a copy of this state
+	 */
+	protected TokenizerState copy() {
+		WhitespaceState s = (WhitespaceState) super.copy();
+		s.whitespaceChar = whitespaceChar.clone();
+		return s;
+	}
+
 	/**
 	 * Ignore whitespace (such as blanks and tabs), and return the tokenizer's
 	 * next token.
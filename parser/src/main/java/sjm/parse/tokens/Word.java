@@ -26,6 +26,16 @@ import sjm.parse.*;
 
 public class Word extends Terminal {
 
+	/**
+	 * Returns the word token type, which every word is filed 
+	 * under.
+	 *
+	 * @return   the lookahead key of words
+	 */
+	public Object[] lookaheadKeys() {
+		return new Object[] {Token.TT_WORD};
+	}
+	
 	/**
 	 * Returns true if an assembly's next element is a word.
 	 *
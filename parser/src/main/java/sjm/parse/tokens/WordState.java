@@ -26,7 +26,6 @@ import java.io.PushbackReader;
 
 public class WordState extends TokenizerState {
 
-	protected char charbuf[] = new char[16];
 	protected boolean wordChar[] = new boolean[256];
 	
 	/**
@@ -46,19 +45,22 @@ public class WordState extends TokenizerState {
 		setWordChars(0xc0, 0xff, true);
 	}
 	
-	/*
-	 * Fatten up charbuf as necessary.
+	/**
+	 * Returns a copy of this state with its own table of word 
+	 * characters.
+	 * 
+	 * @return a copy of this state
 	 */
-	protected void checkBufLength(int i) {
-		if (i >= charbuf.length) {
-			char nb[] = new char[charbuf.length * 2];
-			System.arraycopy(charbuf, 0, nb, 0, charbuf.length);
-			charbuf = nb;
-		}
+	protected TokenizerState copy() {
+		WordState s = (WordState) super.copy();
+		s.wordChar = wordChar.clone();
+		return s;
 	}
 	
 	/**
-	 * Return a word token from a reader.
+	 * Return a word token from a reader. The characters collect 
+	 * in the tokenizer's buffer, so tokenizers that share this 
+	 * state can read at the same time.
 	 *
 	 * @return a word token from a reader
 	 */
@@ -66,9 +68,12 @@ public class WordState extends TokenizerState {
 	public Token nextToken(PushbackReader r, int c, Tokenizer t) 
 		throws IOException {
 			
+		char charbuf[] = t.charbuf(16);
 		int i = 0;
 		do {
-			checkBufLength(i);
+			if (i >= charbuf.length) {
+				charbuf = t.charbuf(i + 1);
+			}
 			charbuf[i++] = (char) c;
 			c = r.read();
 		} while (wordChar(c));
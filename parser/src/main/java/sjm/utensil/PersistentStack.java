@@ -0,0 +1,219 @@
+/*
+ * @(#)PersistentStack.java	 1.0.0
+ *
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package sjm.utensil;
+
+import java.util.*;
+
+public final class PersistentStack {
+	
+	/**
+	 * the stack with nothing on it
+	 */
+	public static final PersistentStack EMPTY =
+		new PersistentStack(null, null, 0);
+	
+	/*
+	 * the object on top of this stack
+	 */
+	private final Object top;
+	
+	/*
+	 * the stack underneath the top object, which this stack
+	 * shares with every other stack pushed onto it
+	 */
+	private final PersistentStack rest;
+	
+	/*
+	 * the number of objects on this stack
+	 */
+	private final int size;
+	
+	/*
+	 * the hash code of this stack, or 0 until hashCode() first 
+	 * works it out from the hash code of the stack underneath
+	 */
+	private int hash;
+	
+	/*
+	 * Stacks are made only by pushing onto EMPTY.
+	 */
+	private PersistentStack(Object top, PersistentStack rest, int size) {
+		this.top = top;
+		this.rest = rest;
+		this.size = size;
+	}
+	
+	/**
+	 * Compares two objects for equality, treating nulls carefully.
+	 */
+	private static boolean equal(Object o1, Object o2) {
+		if (o1 == null || o2 == null) {
+			return o1 == o2;
+		}
+		return o1.equals(o2);
+	}
+	
+	/**
+	 * Returns true if the supplied object is a stack holding
+	 * equal objects in the same order. Stacks that share a tail
+	 * stop comparing where their tails meet.
+	 * 
+	 * @param   object   the object to compare
+	 * 
+	 * @return   true, if the supplied object is an equal stack
+	 */
+	public boolean equals(Object o) {
+		if (!(o instanceof PersistentStack)) {
+			return false;
+		}
+		PersistentStack s1 = this;
+		PersistentStack s2 = (PersistentStack) o;
+		if (s1.size != s2.size) {
+			return false;
+		}
+		while (s1 != s2) {
+			if (!equal(s1.top, s2.top)) {
+				return false;
+			}
+			s1 = s1.rest;
+			s2 = s2.rest;
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns a hash code that agrees with <code>equals()</code>, 
+	 * as long as the objects on the stack do not change their 
+	 * own hash codes after they are pushed. Each stack works its 
+	 * hash code out the first time it is asked for, and keeps it, 
+	 * so pushing never calls the objects' <code>hashCode()</code>.
+	 * 
+	 * @return   a hash code for this stack
+	 */
+	public int hashCode() {
+		int h = hash;
+		if (h == 0 && rest != null) {
+			// work up from the nearest stack that knows its hash 
+			// code, so that a deep stack does not recurse
+			Vector unhashed = new Vector();
+			PersistentStack s = this;
+			while (s.rest != null && s.hash == 0) {
+				unhashed.addElement(s);
+				s = s.rest;
+			}
+			h = s.hash;
+			for (int i = unhashed.size() - 1; i >= 0; i--) {
+				s = (PersistentStack) unhashed.elementAt(i);
+				h = 31 * h + (s.top == null ? 0 : s.top.hashCode());
+				s.hash = h;
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * Returns true if this stack is empty.
+	 * 
+	 * @return   true, if this stack is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the object at the top of this stack, without
+	 * removing it.
+	 * 
+	 * @return   the object at the top of this stack
+	 * 
+	 * @exception   EmptyStackException   if this stack is empty
+	 */
+	public Object peek() {
+		if (size == 0) {
+			throw new EmptyStackException();
+		}
+		return top;
+	}
+	
+	/**
+	 * Returns the stack underneath the top object. This stack
+	 * does not change.
+	 * 
+	 * @return   the stack underneath the top object
+	 * 
+	 * @exception   EmptyStackException   if this stack is empty
+	 */
+	public PersistentStack pop() {
+		if (size == 0) {
+			throw new EmptyStackException();
+		}
+		return rest;
+	}
+	
+	/**
+	 * Returns a stack with the given object on top of this one.
+	 * This stack does not change, and the new stack shares it.
+	 * 
+	 * @param   object   the object to push
+	 * 
+	 * @return   a stack with the given object on top of this one
+	 */
+	public PersistentStack push(Object o) {
+		return new PersistentStack(o, this, size + 1);
+	}
+	
+	/**
+	 * Returns the number of objects on this stack.
+	 * 
+	 * @return   the number of objects on this stack
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns a <code>java.util.Stack</code> with the same
+	 * objects as this stack. Changing the returned stack does not
+	 * change this one.
+	 * 
+	 * @return   a <code>java.util.Stack</code> copy of this stack
+	 */
+	public Stack toStack() {
+		Stack s = new Stack();
+		s.setSize(size);
+		int i = size;
+		for (PersistentStack p = this; p.size > 0; p = p.rest) {
+			s.setElementAt(p.top, --i);
+		}
+		return s;
+	}
+	
+	/**
+	 * Returns a textual description of this stack, bottom first,
+	 * in the same form <code>java.util.Stack</code> uses.
+	 * 
+	 * @return   a textual description of this stack
+	 */
+	public String toString() {
+		return toStack().toString();
+	}
+}
@@ -0,0 +1,91 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Enumeration;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class AssemblySetTest {
+
+	/**
+	 * A parser written against the Vector API, consuming one
+	 * element of whatever kind.
+	 */
+	private static class VectorParser extends Parser {
+
+		public void accept(ParserVisitor pv, Vector visited) {
+		}
+
+		public Vector match(Vector in) {
+			Vector out = new Vector();
+			Enumeration e = in.elements();
+			while (e.hasMoreElements()) {
+				Assembly a = (Assembly) ((Assembly) e.nextElement()).clone();
+				if (a.hasMoreElements()) {
+					a.push(a.nextElement());
+					out.addElement(a);
+				}
+			}
+			return out;
+		}
+
+		protected Vector randomExpansion(int maxDepth, int depth) {
+			return new Vector();
+		}
+
+		protected String unvisitedString(Vector visited) {
+			return "vector";
+		}
+	}
+
+	@Test
+	public void testDeduplicate() {
+		Parser item = new Alternation(new Word(), new Word());
+		Parser plain = new Repetition(item);
+		AssemblySet in = new AssemblySet(new TokenAssembly("a b c"));
+		assertEquals("plain", 15, plain.matchAndAssemble(in).size());
+
+		Parser p = new Repetition(item).setDeduplicate(true);
+		AssemblySet out = p.matchAndAssemble(in);
+		assertEquals("deduplicated", 4, out.size());
+		for (int i = 0; i < out.size(); i++) {
+			assertEquals("order", i, out.get(i).elementsConsumed());
+		}
+	}
+
+	@Test
+	public void testVectorParserInsideSequence() {
+		Parser p = new Sequence(new Word(), new VectorParser(), new Word());
+		Assembly a = p.completeMatch(new TokenAssembly("a , b"));
+		assertNotNull(a);
+		assertEquals("stack", "[a, ,, b]", a.getStack().toString());
+	}
+
+	@Test
+	public void testVectorAdapter() {
+		Vector in = new Vector();
+		in.addElement(new TokenAssembly("a b c"));
+		Vector out = new Repetition(new Word()).matchAndAssemble(in);
+		assertEquals("size", 4, out.size());
+	}
+
+	@Test
+	public void testAddAllGrows() {
+		AssemblySet s = new AssemblySet();
+		AssemblySet t = new AssemblySet();
+		for (int i = 0; i < 10; i++) {
+			t.add(new TokenAssembly("a"));
+		}
+		s.add(new TokenAssembly("b"));
+		s.addAll(t);
+		s.addAll(t);
+		assertEquals("size", 21, s.size());
+		assertEquals("order", t.get(9), s.get(20));
+	}
+}
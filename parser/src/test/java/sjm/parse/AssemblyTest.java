@@ -0,0 +1,78 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Stack;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.TokenAssembly;
+import sjm.utensil.PubliclyCloneable;
+
+public class AssemblyTest {
+
+	/**
+	 * A target holding a number, whose copies all count how often
+	 * it was copied.
+	 */
+	private static class Count implements PubliclyCloneable {
+		int n;
+		int[] copies = new int[1];
+
+		public Object clone() {
+			try {
+				copies[0]++;
+				return super.clone();
+			} catch (CloneNotSupportedException e) {
+				throw new InternalError();
+			}
+		}
+	}
+
+	@Test
+	public void testGetStackReturnsCopy() {
+		Assembly a = new TokenAssembly("x");
+		a.push("a");
+		a.push("b");
+		Stack s = a.getStack();
+		s.push("c");
+		s.setElementAt("z", 0);
+		assertEquals("stack", "[a, b]", a.getStack().toString());
+		Assembly b = (Assembly) a.clone();
+		b.pop();
+		assertEquals("clone", "[a]", b.getStack().toString());
+		assertEquals("original", "[a, b]", a.getStack().toString());
+	}
+
+	@Test
+	public void testTargetCopiedOnWrite() {
+		Count count = new Count();
+		Assembly a = new TokenAssembly("x");
+		a.setTarget(count);
+		Assembly b = (Assembly) a.clone();
+		assertSame("shared", a.peekTarget(), b.peekTarget());
+		assertEquals("copies", 0, count.copies[0]);
+
+		((Count) b.getTarget()).n = 5;
+		assertEquals("copies", 1, count.copies[0]);
+		assertEquals("original", 0, ((Count) a.getTarget()).n);
+		assertEquals("changed", 5, ((Count) b.getTarget()).n);
+		assertEquals("copies", 2, count.copies[0]);
+	}
+
+	@Test
+	public void testSetTargetStopsSharing() {
+		Count count = new Count();
+		Assembly a = new TokenAssembly("x");
+		a.setTarget(count);
+		Assembly b = (Assembly) a.clone();
+		Count other = new Count();
+		b.setTarget(other);
+		assertSame("set", other, b.getTarget());
+		assertEquals("copies", 0, other.copies[0]);
+		assertNotSame("original", other, a.getTarget());
+		assertEquals("original", 0, ((Count) a.getTarget()).n);
+	}
+}
@@ -0,0 +1,119 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import sjm.examples.coffee.CoffeeParser;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Tokenizer;
+import sjm.parse.tokens.TokenizerFactory;
+
+public class BatchParserTest {
+
+	private TokenizerFactory coffeeTokenizers() {
+		return new TokenizerFactory() {
+			protected Tokenizer newTokenizer() {
+				return CoffeeParser.tokenizer();
+			}
+		};
+	}
+
+	private List readCoffee() throws Exception {
+		BufferedReader r = new BufferedReader(new InputStreamReader(
+			getClass().getResourceAsStream("/samples/coffee.txt")));
+		List lines = new ArrayList();
+		String s;
+		while ((s = r.readLine()) != null) {
+			lines.add(s);
+		}
+		return lines;
+	}
+
+	@Test
+	public void testResultsInInputOrder() throws Exception {
+		List lines = new ArrayList();
+		for (int i = 0; i < 20; i++) {
+			lines.addAll(readCoffee());
+		}
+		Parser p = CoffeeParser.start();
+		ParseResult[] results = new BatchParser(p, coffeeTokenizers(), 4)
+			.parse(lines);
+
+		assertEquals("count", lines.size(), results.length);
+		Tokenizer t = CoffeeParser.tokenizer();
+		for (int i = 0; i < results.length; i++) {
+			String s = (String) lines.get(i);
+			t.setString(s);
+			Object expected = p.bestMatch(new TokenAssembly(t)).getTarget();
+			assertEquals("index", i, results[i].getIndex());
+			assertEquals("input", s, results[i].getInput());
+			assertTrue(s, results[i].succeeded());
+			assertEquals(s, expected, results[i].getTarget());
+		}
+	}
+
+	@Test
+	public void testFailuresReportedPerRecord() {
+		List lines = new ArrayList();
+		lines.add("Brimful, Regular, Kenya, 6.95");
+		lines.add("Brimful, Regular");
+		lines.add("boom");
+		lines.add("Launch Mi, French, Kenya, 6.95");
+		AssemblyFactory factory = new AssemblyFactory() {
+			TokenizerFactory tokenizers = coffeeTokenizers();
+
+			public Assembly assembly(String s) {
+				if (s.equals("boom")) {
+					throw new IllegalArgumentException(s);
+				}
+				return tokenizers.assembly(s);
+			}
+		};
+		ParseResult[] results = BatchParser.parseAll(
+			lines, CoffeeParser.start(), factory);
+
+		assertTrue("first", results[0].succeeded());
+		assertFalse("incomplete", results[1].succeeded());
+		assertNull("no error", results[1].getError());
+		assertFalse("thrown", results[2].succeeded());
+		assertNotNull("error", results[2].getError());
+		assertTrue("last", results[3].succeeded());
+	}
+
+	@Test
+	public void testErrorsReportedPerRecord() {
+		List lines = new ArrayList();
+		lines.add("deep");
+		lines.add("Brimful, Regular, Kenya, 6.95");
+		lines.add("assert");
+		AssemblyFactory factory = new AssemblyFactory() {
+			TokenizerFactory tokenizers = coffeeTokenizers();
+
+			public Assembly assembly(String s) {
+				if (s.equals("deep")) {
+					throw new StackOverflowError();
+				}
+				if (s.equals("assert")) {
+					throw new AssertionError(s);
+				}
+				return tokenizers.assembly(s);
+			}
+		};
+		ParseResult[] results = new BatchParser(
+			CoffeeParser.start(), factory, 2).parse(lines);
+
+		assertTrue("overflow", results[0].getError() instanceof StackOverflowError);
+		assertTrue("middle", results[1].succeeded());
+		assertTrue("assert", results[2].getError() instanceof AssertionError);
+	}
+}
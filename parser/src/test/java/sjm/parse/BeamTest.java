@@ -0,0 +1,73 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class BeamTest {
+
+	/**
+	 * Every word matches both branches, so n words give 2^n paths.
+	 */
+	private Parser getAmbiguous() {
+		return new Repetition(new Alternation(new Word(), new Word()));
+	}
+
+	@Test
+	public void testBeamKeepsCompleteMatch() {
+		String s = "a b c d e f g h i j";
+		Beam beam = new Beam(3);
+		Assembly a = getAmbiguous().completeMatch(new TokenAssembly(s), beam);
+		assertNotNull(a);
+		assertEquals("stack", "[a, b, c, d, e, f, g, h, i, j]",
+			a.getStack().toString());
+		assertTrue("pruned", beam.wasPruned());
+		assertTrue("dropped", beam.pruned() > 0);
+	}
+
+	@Test
+	public void testWideBeamDoesNotPrune() {
+		Beam beam = new Beam(100);
+		Assembly a = getAmbiguous().completeMatch(new TokenAssembly("a b"), beam);
+		assertNotNull(a);
+		assertFalse("pruned", beam.wasPruned());
+	}
+
+	@Test
+	public void testScorer() {
+		AssemblyScorer fewest = new AssemblyScorer() {
+			public double score(Assembly a) {
+				return -a.elementsConsumed();
+			}
+		};
+		Parser p = new Repetition(new Word());
+		Assembly a = p.bestMatch(new TokenAssembly("a b c"), new Beam(1, fewest));
+		assertEquals("consumed", 0, a.elementsConsumed());
+		assertEquals("unpruned", 3,
+			p.bestMatch(new TokenAssembly("a b c")).elementsConsumed());
+	}
+
+	@Test
+	public void testPruneKeepsOrder() {
+		AssemblySet s = new AssemblySet();
+		int[] consumed = {1, 3, 0, 3, 2};
+		for (int i = 0; i < consumed.length; i++) {
+			Assembly a = new TokenAssembly("a b c");
+			for (int j = 0; j < consumed[i]; j++) {
+				a.nextElement();
+			}
+			s.add(a);
+		}
+		AssemblySet out = new Beam(3).prune(s);
+		assertEquals("size", 3, out.size());
+		assertEquals("first", 3, out.get(0).elementsConsumed());
+		assertEquals("second", 3, out.get(1).elementsConsumed());
+		assertEquals("third", 2, out.get(2).elementsConsumed());
+	}
+}
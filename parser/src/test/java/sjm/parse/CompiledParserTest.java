@@ -0,0 +1,267 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import sjm.examples.coffee.CoffeeParser;
+import sjm.parse.tokens.Literal;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.TokenFeed;
+import sjm.parse.tokens.Tokenizer;
+import sjm.parse.tokens.Word;
+
+public class CompiledParserTest {
+
+	/**
+	 * The states of a set of assemblies, in a canonical order.
+	 */
+	private List states(AssemblySet s) {
+		List list = new ArrayList();
+		for (int i = 0; i < s.size(); i++) {
+			Assembly a = s.get(i);
+			list.add(a.getStack() + "^" + a.elementsConsumed());
+		}
+		Collections.sort(list);
+		return list;
+	}
+
+	private void assertSameResults(Parser p, String s) {
+		AssemblySet expected = p.matchAndAssemble(
+			new AssemblySet(new TokenAssembly(s)));
+		AssemblySet actual = ParserCompiler.compile(p).matchAndAssemble(
+			new AssemblySet(new TokenAssembly(s)));
+		assertEquals(s, states(expected), states(actual));
+	}
+
+	@Test
+	public void testRecursiveList() {
+		Parser item = new Alternation(new Word(), new Num());
+		Alternation list = new Alternation();
+		list.add(new Sequence(item, new Symbol(',').discard(), list));
+		list.add(item);
+		assertSameResults(list, "a, 1, b, 2");
+		assertSameResults(list, "a, , b");
+	}
+
+	@Test
+	public void testRepetitionWithAssemblers() {
+		Repetition r = new Repetition(new Sequence(new Word(), new Num()));
+		r.setPreAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push("(");
+			}
+		});
+		r.setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push(")");
+			}
+		});
+		Parser p = new Sequence(r, new Repetition(new Word()), new Empty());
+		assertSameResults(p, "a 1 b 2 c d");
+	}
+
+	@Test
+	public void testDelegatedParsers() {
+		Parser p = new Sequence(
+			new OrderedChoice(new Literal("a"), new Word()),
+			new PossessiveRepetition(new Word()),
+			new BoundedRepetition(new Num(), 1, 2),
+			new Repetition(new Alternation(new Num(), new Num()))
+				.setDeduplicate(true));
+		// a deduplicating parser sees one assembly at a time here, 
+		// so it cannot drop duplicates that arrive on separate threads
+		AssemblySet expected = p.matchAndAssemble(
+			new AssemblySet(new TokenAssembly("a b c 1 2 3")));
+		AssemblySet actual = ParserCompiler.compile(p).matchAndAssemble(
+			new AssemblySet(new TokenAssembly("a b c 1 2 3")));
+		assertEquals(new TreeSet(states(expected)), new TreeSet(states(actual)));
+	}
+
+	@Test
+	public void testLeftRecursionIsDelegated() {
+		// expr = expr '+' Num | Num; compiled, the left call would 
+		// loop without consuming anything
+		Alternation expr = new Alternation();
+		expr.add(new Sequence(expr, new Symbol('+'), new Num()));
+		expr.add(new Num());
+		Parser p = new Sequence(expr, new Symbol(';'));
+		CompiledParser c = ParserCompiler.compile(p);
+		assertEquals(CompiledParser.DELEGATE, c.getCode()[0]);
+
+		Assembly in = new TokenAssembly("1 + 2 + 3;");
+		in.setMemo(new PackratMemo());
+		Assembly a = c.completeMatch(in);
+		assertNotNull(a);
+		in = new TokenAssembly("1 + 2 + 3;");
+		in.setMemo(new PackratMemo());
+		assertEquals(p.completeMatch(in).getStack(), a.getStack());
+	}
+
+	@Test
+	public void testEmbeddedInLargerGrammar() {
+		Parser seq = new Sequence(new Literal("a"), new Literal("b"));
+		Alternation alt = new Alternation(
+			ParserCompiler.compile(seq), new Literal("c"));
+		GrammarAnalyzer ga = new GrammarAnalyzer(alt);
+		assertEquals("min", 0, ga.minLength(alt));
+		alt.setLookahead(true);
+		assertNotNull("ab", alt.completeMatch(new TokenAssembly("a b")));
+		assertNotNull("c", alt.completeMatch(new TokenAssembly("c")));
+
+		Parser optimized = ParserOptimizer.optimize(alt);
+		assertNotNull("optimized", optimized.completeMatch(new TokenAssembly("a b")));
+		Parser compiled = ParserCompiler.compile(alt);
+		assertNotNull("compiled", compiled.completeMatch(new TokenAssembly("a b")));
+		TokenFeed feed = new TokenFeed(alt);
+		feed.push("a b");
+		feed.end();
+		assertNotNull("pushed", feed.getParse().completeMatch());
+	}
+
+	@Test
+	public void testNoAlternatives() {
+		assertSameResults(new Alternation(), "a");
+	}
+
+	/**
+	 * A random grammar over words, numbers and commas, with 
+	 * assemblers that mark which parsers matched.
+	 */
+	private Parser randomParser(final Random r, int depth) {
+		Parser p;
+		int kind = depth == 0 ? 0 : r.nextInt(5);
+		if (kind == 0) {
+			int t = r.nextInt(3);
+			p = t == 0 ? new Word() : t == 1 ? (Parser) new Num() : new Symbol(',');
+		} else if (kind == 1) {
+			p = new Repetition(randomParser(r, depth - 1));
+		} else if (kind == 2) {
+			p = new Alternation(randomParser(r, depth - 1), randomParser(r, depth - 1));
+		} else if (kind == 3) {
+			p = new Sequence(randomParser(r, depth - 1), randomParser(r, depth - 1));
+		} else {
+			p = new Empty();
+		}
+		if (r.nextInt(3) == 0) {
+			final String mark = "m" + r.nextInt(100);
+			p.setAssembler(new Assembler() {
+				public void workOn(Assembly a) {
+					a.push(mark);
+				}
+			});
+		}
+		return p;
+	}
+
+	private List ordered(AssemblySet s) {
+		List list = new ArrayList();
+		for (int i = 0; i < s.size(); i++) {
+			Assembly a = s.get(i);
+			list.add(a.getStack() + "^" + a.elementsConsumed());
+		}
+		return list;
+	}
+
+	@Test
+	public void testSameOrderOnAmbiguousGrammars() {
+		Random r = new Random(1);
+		String[] inputs = {"b b , , 1", "a 1 , b", "1 1 1", ", a , a"};
+		for (int i = 0; i < 300; i++) {
+			Parser p = randomParser(r, 4);
+			if (!new GrammarAnalyzer(p).runawayRepetitions().isEmpty()) {
+				continue;
+			}
+			CompiledParser c = ParserCompiler.compile(p);
+			for (int j = 0; j < inputs.length; j++) {
+				String s = inputs[j];
+				assertEquals(p + " on " + s,
+					ordered(p.matchAndAssemble(new AssemblySet(new TokenAssembly(s)))),
+					ordered(c.matchAndAssemble(new AssemblySet(new TokenAssembly(s)))));
+				Assembly expected = p.bestMatch(new TokenAssembly(s));
+				Assembly actual = c.bestMatch(new TokenAssembly(s));
+				assertEquals(p + " on " + s, 
+					expected == null ? null : expected.getStack() + "^" + expected.elementsConsumed(),
+					actual == null ? null : actual.getStack() + "^" + actual.elementsConsumed());
+			}
+		}
+	}
+
+	@Test
+	public void testAnyCompleteMatchStopsEarly() {
+		final int[] accepted = new int[1];
+		Parser words = new Repetition(new Alternation(new Word(), new Word()));
+		words.setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				accepted[0]++;
+			}
+		});
+		CompiledParser p = ParserCompiler.compile(words);
+		String s = "a b c d e f g h";
+		Assembly a = p.anyCompleteMatch(new TokenAssembly(s));
+		assertNotNull(a);
+		assertFalse(a.hasMoreElements());
+		// the shorter prefixes finish first, but none of the 2^8 
+		// complete paths after the first one runs
+		assertEquals("paths run", 9, accepted[0]);
+		assertEquals(null, p.anyCompleteMatch(new TokenAssembly("a b 1")));
+		assertEquals(words.completeMatch(new TokenAssembly(s)).getStack(), 
+			words.anyCompleteMatch(new TokenAssembly(s)).getStack());
+	}
+
+	@Test
+	public void testBestMatchAmongEquallyLongMatches() {
+		// "a b c" splits into one, two or three runs of words; the 
+		// set-based engine lists the single run first
+		Sequence run = new Sequence(new Repetition(new Word()), new Word());
+		run.setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push("m");
+			}
+		});
+		Parser p = new Repetition(run);
+		assertEquals("[a, b, c, m]", 
+			p.bestMatch(new TokenAssembly("a b c")).getStack().toString());
+		assertEquals("[a, b, c, m]", ParserCompiler.compile(p)
+			.bestMatch(new TokenAssembly("a b c")).getStack().toString());
+	}
+
+	@Test
+	public void testBestMatchWithoutCompleteMatch() {
+		Parser p = ParserCompiler.compile(
+			new Sequence(new Repetition(new Word()), new Num()));
+		Assembly a = p.bestMatch(new TokenAssembly("a b 1 c"));
+		assertEquals("consumed", 3, a.elementsConsumed());
+		assertEquals("complete", null, p.completeMatch(new TokenAssembly("a b 1 c")));
+	}
+
+	@Test
+	public void testCoffee() throws Exception {
+		BufferedReader r = new BufferedReader(new InputStreamReader(
+			getClass().getResourceAsStream("/samples/coffee.txt")));
+		Tokenizer t = CoffeeParser.tokenizer();
+		Parser plain = CoffeeParser.start();
+		Parser compiled = ParserCompiler.compile(CoffeeParser.start());
+		String s;
+		while ((s = r.readLine()) != null) {
+			t.setString(s);
+			Object expected = plain.bestMatch(new TokenAssembly(t)).getTarget();
+			t.setString(s);
+			Assembly a = compiled.bestMatch(new TokenAssembly(t));
+			assertNotNull(s, a);
+			assertEquals(s, expected, a.getTarget());
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+
+import org.junit.Test;
+
+import sjm.examples.coffee.CoffeeParser;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Tokenizer;
+import sjm.parse.tokens.Word;
+
+public class DeferredAssemblerTest {
+
+	/**
+	 * Counts its calls and replaces the number on top of the 
+	 * stack with its double, noting the position it ran at.
+	 */
+	private static class Doubler extends Assembler {
+		int calls;
+
+		public void workOn(Assembly a) {
+			calls++;
+			Double d = (Double) ((sjm.parse.tokens.Token) a.pop()).value();
+			a.push(new Double(2 * d.doubleValue()));
+			a.push(new Integer(a.elementsConsumed()));
+		}
+	}
+
+	@Test
+	public void testReplayOnlyBest() {
+		Doubler doubler = new Doubler();
+		Parser num = new Num().setAssembler(doubler);
+		Parser p = new Repetition(new Alternation(num, new Word(), new Num()));
+
+		Assembly in = new TokenAssembly("1 a 2 b 3");
+		in.setDeferred(true);
+		Assembly a = p.completeMatch(in);
+
+		assertNotNull(a);
+		assertEquals("calls", 3, doubler.calls);
+		assertEquals("stack", "[2.0, 1, a, 4.0, 3, b, 6.0, 5]",
+			a.getStack().toString());
+		assertNull("trail", a.getTrail());
+		assertEquals("position", 5, a.elementsConsumed());
+
+		doubler.calls = 0;
+		assertEquals("eager stack", a.getStack(),
+			p.completeMatch(new TokenAssembly("1 a 2 b 3")).getStack());
+		assertEquals("eager calls", 7, doubler.calls);
+	}
+
+	@Test
+	public void testCoffee() throws Exception {
+		BufferedReader r = new BufferedReader(new InputStreamReader(
+			getClass().getResourceAsStream("/samples/coffee.txt")));
+		Tokenizer t = CoffeeParser.tokenizer();
+		Parser p = CoffeeParser.start();
+		Parser compiled = ParserCompiler.compile(p);
+		String s;
+		while ((s = r.readLine()) != null) {
+			t.setString(s);
+			Object expected = p.bestMatch(new TokenAssembly(t)).getTarget();
+
+			t.setString(s);
+			Assembly in = new TokenAssembly(t);
+			in.setDeferred(true);
+			assertEquals(s, expected, p.bestMatch(in).getTarget());
+
+			t.setString(s);
+			in = new TokenAssembly(t);
+			in.setDeferred(true);
+			in.setMemo(new PackratMemo());
+			assertEquals(s, expected, p.bestMatch(in).getTarget());
+
+			t.setString(s);
+			in = new TokenAssembly(t);
+			in.setDeferred(true);
+			assertEquals(s, expected, compiled.bestMatch(in).getTarget());
+		}
+	}
+
+	@Test
+	public void testMemoRebasesTrails() {
+		Parser item = new Alternation(new Word(), new Num());
+		Alternation list = new Alternation();
+		list.add(new Sequence(item, new Symbol(',').discard(), list));
+		list.add(new Sequence(item, new Symbol(';').discard(), list));
+		list.add(item);
+		String s = "a, b; 1, c; d, 2, e";
+
+		PackratMemo memo = new PackratMemo();
+		Assembly in = new TokenAssembly(s);
+		in.setDeferred(true);
+		in.setMemo(memo);
+		Assembly a = list.completeMatch(in);
+
+		assertEquals("stack", list.completeMatch(new TokenAssembly(s)).getStack(),
+			a.getStack());
+		assertTrue("hits", memo.hits() > 0);
+	}
+
+	@Test
+	public void testDeduplicateKeepsDifferentTrails() {
+		Parser a1 = new Word().setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push("one");
+			}
+		});
+		Parser a2 = new Word().setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push("two");
+			}
+		});
+		Parser p = new Alternation(a1, a2).setDeduplicate(true);
+		Assembly in = new TokenAssembly("x");
+		in.setDeferred(true);
+		assertEquals("size", 2, p.matchAndAssemble(new AssemblySet(in)).size());
+	}
+}
@@ -0,0 +1,89 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Vector;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.Token;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class ErrorRecoveryTest {
+
+	/**
+	 * Counts the settings it sees in the target.
+	 */
+	private static class Setting extends Assembler {
+		public void workOn(Assembly a) {
+			Object value = a.pop();
+			Object name = a.pop();
+			a.push(name + "=" + value);
+		}
+	}
+
+	private static ErrorRecovery settings() {
+		Sequence s = new Sequence(new Word(), new Symbol('=').discard(), new Num());
+		s.setAssembler(new Setting());
+		return new ErrorRecovery(s).addSync(new Token(';'));
+	}
+
+	@Test
+	public void testRecovers() {
+		RecoveryResult r = settings().parse(
+			new TokenAssembly("a = 1; b = ; c = 3; d 4 e; f = 6"));
+		assertFalse("errors", r.succeeded());
+		assertEquals("stack", "[a=1.0, c=3.0, f=6.0]", 
+			r.getAssembly().getStack().toString());
+		assertFalse("consumed", r.getAssembly().hasMoreElements());
+
+		Vector errors = r.getErrors();
+		assertEquals("errors", 2, errors.size());
+		ParseError first = (ParseError) errors.elementAt(0);
+		assertEquals("start", 4, first.getStart());
+		assertEquals("reached", 6, first.getReached());
+		assertEquals("end", 6, first.getEnd());
+		assertEquals("first", "skipped 4 to 6 (stopped at 6): b =", first.toString());
+		ParseError second = (ParseError) errors.elementAt(1);
+		assertEquals("second", "[d, 4.0, e]", second.getSkipped().toString());
+	}
+
+	@Test
+	public void testClean() {
+		RecoveryResult r = settings().parse(new TokenAssembly(";a = 1;; b = 2;"));
+		assertTrue("succeeded", r.succeeded());
+		assertEquals("stack", "[a=1.0, b=2.0]", r.getAssembly().getStack().toString());
+	}
+
+	@Test
+	public void testPartialUnitIsError() {
+		RecoveryResult r = settings().parse(new TokenAssembly("a = 1 2; b = 2"));
+		assertEquals("errors", 1, r.getErrors().size());
+		assertEquals("stack", "[b=2.0]", r.getAssembly().getStack().toString());
+	}
+
+	@Test
+	public void testDeferred() {
+		TokenAssembly a = new TokenAssembly("a = 1; b = ; c = 3");
+		a.setDeferred(true);
+		RecoveryResult r = settings().parse(a);
+		assertEquals("stack", "[a=1.0, c=3.0]", r.getAssembly().getStack().toString());
+	}
+
+	@Test
+	public void testParserSeesPastSeparators() {
+		// a unit of words and semicolons matches across separators
+		Parser words = new Repetition(new Alternation(new Word(), new Symbol(';')));
+		RecoveryResult r = new ErrorRecovery(words).addSync(new Token(';'))
+			.parse(new TokenAssembly("a b; c; 1"));
+		assertEquals("stack", "[a, b, ;, c]", r.getAssembly().getStack().toString());
+		assertEquals("errors", 1, r.getErrors().size());
+		assertEquals("error", "[1.0]",
+			((ParseError) r.getErrors().elementAt(0)).getSkipped().toString());
+	}
+}
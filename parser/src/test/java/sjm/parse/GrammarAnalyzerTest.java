@@ -0,0 +1,145 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Vector;
+
+import org.junit.Test;
+
+import sjm.examples.coffee.CoffeeParser;
+import sjm.parse.tokens.Literal;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class GrammarAnalyzerTest {
+
+	/**
+	 * A sequence that counts how many assemblies it is asked to
+	 * match.
+	 */
+	private static class CountingSequence extends Sequence {
+		int inputs;
+
+		CountingSequence(Parser p1, Parser p2) {
+			super(p1, p2);
+		}
+
+		public AssemblySet match(AssemblySet in) {
+			inputs += in.size();
+			return super.match(in);
+		}
+	}
+
+	@Test
+	public void testFollow() {
+		Terminal open = new Symbol('(');
+		Terminal close = new Symbol(')');
+		Terminal comma = new Symbol(',');
+		Terminal num = new Num();
+		Sequence more = new Sequence(comma, num);
+		Sequence list = new Sequence(open, num, new Repetition(more), close);
+		GrammarAnalyzer ga = new GrammarAnalyzer(list);
+
+		Vector f = ga.follow(num);
+		assertEquals("num", 2, f.size());
+		assertTrue("comma", f.contains(comma));
+		assertTrue("close", f.contains(close));
+		assertTrue("more", ga.follow(more).contains(comma));
+		assertTrue("end", ga.follow(list).contains(GrammarAnalyzer.END));
+		assertTrue("close end", ga.follow(close).contains(GrammarAnalyzer.END));
+	}
+
+	@Test
+	public void testMinLength() {
+		Terminal a = new Literal("a");
+		Alternation list = new Alternation();
+		list.add(new Sequence(a, a, list));
+		list.add(a);
+		Parser three = new BoundedRepetition(new Word(), 3, 5);
+		Parser never = new Sequence(a, new Alternation());
+		Parser any = new Repetition(a);
+		GrammarAnalyzer ga = new GrammarAnalyzer(new Sequence(list, three));
+		ga.analyze(never);
+		ga.analyze(any);
+
+		assertEquals("list", 1, ga.minLength(list));
+		assertEquals("three", 3, ga.minLength(three));
+		assertEquals("repetition", 0, ga.minLength(any));
+		assertEquals("never", GrammarAnalyzer.INFINITE, ga.minLength(never));
+	}
+
+	@Test
+	public void testRunawayRepetition() {
+		Parser runaway = new Repetition(new Alternation(new Word(), new Empty()));
+		Parser bounded = new BoundedRepetition(new Empty(), 0, 3);
+		Parser fine = new Repetition(new Word());
+		GrammarAnalyzer ga = new GrammarAnalyzer(
+			new Sequence(runaway, bounded, fine));
+
+		Vector r = ga.runawayRepetitions();
+		assertEquals("runaway", 1, r.size());
+		assertTrue("runaway", r.contains(runaway));
+		assertEquals("warnings", 1, ga.warnings().size());
+	}
+
+	@Test
+	public void testBuildsRejectRunawayRepetition() {
+		Parser p = new Sequence(new Word(),
+			new Repetition(new Alternation(new Word(), new Empty())));
+		try {
+			ParserCompiler.compile(p);
+			fail("compiled");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Repetition"));
+		}
+		try {
+			ParserOptimizer.optimize(p);
+			fail("optimized");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Repetition"));
+		}
+		new GrammarAnalyzer(CoffeeParser.start()).checkRepetitions();
+	}
+
+	@Test
+	public void testLeftRecursion() {
+		Alternation expr = new Alternation();
+		Sequence plus = new Sequence(expr, new Symbol('+'));
+		plus.add(new Num());
+		expr.add(plus);
+		expr.add(new Num());
+		Alternation right = new Alternation();
+		right.add(new Sequence(new Num(), right));
+		right.add(new Empty());
+		GrammarAnalyzer ga = new GrammarAnalyzer(new Sequence(expr, right));
+
+		Vector left = ga.leftRecursive();
+		assertEquals("left", 2, left.size());
+		assertTrue("expr", left.contains(expr));
+		assertTrue("plus", left.contains(plus));
+	}
+
+	@Test
+	public void testAnnotatePrunes() {
+		CountingSequence pair = new CountingSequence(new Word(), new Word());
+		Sequence p = new Sequence(new Repetition(new Word()), pair);
+		new GrammarAnalyzer(p).annotate();
+		assertEquals("pair", 2, pair.getMinLength());
+
+		Assembly a = p.completeMatch(new TokenAssembly("a b c d"));
+		assertNotNull(a);
+		assertEquals("stack", "[a, b, c, d]", a.getStack().toString());
+		assertEquals("inputs", 3, pair.inputs);
+	}
+
+	@Test
+	public void testCoffeeGrammar() {
+		GrammarAnalyzer ga = new GrammarAnalyzer(CoffeeParser.start());
+		assertEquals("warnings", new Vector(), ga.warnings());
+	}
+}
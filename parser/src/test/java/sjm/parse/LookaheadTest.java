@@ -0,0 +1,157 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import sjm.examples.coffee.CoffeeParser;
+import sjm.parse.tokens.CaselessLiteral;
+import sjm.parse.tokens.Literal;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.Token;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.TokenString;
+import sjm.parse.tokens.Tokenizer;
+import sjm.parse.tokens.Word;
+
+public class LookaheadTest {
+
+	/**
+	 * A sequence that counts how many times it is asked to match.
+	 */
+	private static class CountingSequence extends Sequence {
+		int calls;
+
+		CountingSequence(Parser p1, Parser p2) {
+			super(p1, p2);
+		}
+
+		public AssemblySet match(AssemblySet in) {
+			calls++;
+			return super.match(in);
+		}
+	}
+
+	@Test
+	public void testFirstAndNullable() {
+		Terminal a = new Literal("a");
+		Terminal b = new Num();
+		Alternation list = new Alternation();
+		list.add(new Sequence(new Repetition(a), b, list));
+		list.add(new Empty());
+		GrammarAnalyzer ga = new GrammarAnalyzer(list);
+
+		Vector first = ga.first(list);
+		assertEquals("first", 2, first.size());
+		assertTrue("a", first.contains(a));
+		assertTrue("b", first.contains(b));
+		assertTrue("list", ga.isNullable(list));
+		assertFalse("sequence", ga.isNullable(
+			(Parser) list.getSubparsers().elementAt(0)));
+	}
+
+	@Test
+	public void testOnlyCandidatesTried() {
+		CountingSequence[] branches = new CountingSequence[4];
+		String[] keywords = {"select", "insert", "update", "delete"};
+		Alternation p = new Alternation();
+		for (int i = 0; i < branches.length; i++) {
+			branches[i] = new CountingSequence(
+				new CaselessLiteral(keywords[i]), new Word());
+			p.add(branches[i]);
+		}
+		p.setLookahead(true);
+
+		Assembly a = p.completeMatch(new TokenAssembly("UPDATE t"));
+		assertNotNull(a);
+		assertEquals("stack", "[UPDATE, t]", a.getStack().toString());
+		assertEquals("update", 1, branches[2].calls);
+		assertEquals("select", 0, branches[0].calls);
+		assertEquals("delete", 0, branches[3].calls);
+	}
+
+	@Test
+	public void testKeysIgnoreLocale() {
+		Locale locale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			Alternation p = new Alternation();
+			p.add(new CaselessLiteral("title"));
+			p.add(new CaselessLiteral("item"));
+			p.setLookahead(true);
+			assertNotNull("title", p.completeMatch(new TokenAssembly("TITLE")));
+			// dotted capital I equals i, ignoring case
+			TokenString item = new TokenString(
+				new Token[] {new Token("\u0130TEM")});
+			assertNotNull("item", p.completeMatch(new TokenAssembly(item)));
+		} finally {
+			Locale.setDefault(locale);
+		}
+	}
+
+	@Test
+	public void testNullableAndWordBranchesKept() {
+		Alternation p = new Alternation();
+		p.add(new Literal("if"));
+		p.add(new Word());
+		p.add(new Symbol(';'));
+		p.add(new Empty());
+		p.setLookahead(true);
+
+		AssemblySet out = p.matchAndAssemble(
+			new AssemblySet(new TokenAssembly("if")));
+		assertEquals("if, Word, Empty", 3, out.size());
+		out = p.matchAndAssemble(new AssemblySet(new TokenAssembly("")));
+		assertEquals("Empty", 1, out.size());
+	}
+
+	@Test
+	public void testSeveralAssemblies() {
+		Alternation p = new Alternation(new Word(), new Num());
+		p.setLookahead(true);
+		Parser q = new Sequence(new Repetition(new Word()), p);
+		assertEquals("size", 3, q.matchAndAssemble(
+			new AssemblySet(new TokenAssembly("a b 1"))).size());
+	}
+
+	@Test
+	public void testCoffee() {
+		String s = "Fragrant Delicto, Regular/French, Peru, 9.95";
+		Parser plain = CoffeeParser.start();
+		Tokenizer t = CoffeeParser.tokenizer();
+		t.setString(s);
+		Object expected = plain.bestMatch(new TokenAssembly(t)).getTarget();
+
+		Parser p = CoffeeParser.start();
+		setLookahead(p, new Vector());
+		t.setString(s);
+		assertEquals("coffee", expected,
+			p.bestMatch(new TokenAssembly(t)).getTarget());
+	}
+
+	private void setLookahead(Parser p, Vector visited) {
+		if (visited.contains(p)) {
+			return;
+		}
+		visited.addElement(p);
+		if (p instanceof Alternation) {
+			((Alternation) p).setLookahead(true);
+		}
+		if (p instanceof CollectionParser) {
+			Vector subs = ((CollectionParser) p).getSubparsers();
+			for (int i = 0; i < subs.size(); i++) {
+				setLookahead((Parser) subs.elementAt(i), visited);
+			}
+		}
+		if (p instanceof Repetition) {
+			setLookahead(((Repetition) p).getSubparser(), visited);
+		}
+	}
+}
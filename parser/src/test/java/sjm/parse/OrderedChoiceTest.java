@@ -0,0 +1,51 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.Literal;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class OrderedChoiceTest {
+
+	@Test
+	public void testCommitsToFirstMatch() {
+		Parser ab = new Sequence(new Literal("a"), new Literal("b"));
+		Parser p = new OrderedChoice(new Literal("a"), ab);
+		AssemblySet out = p.matchAndAssemble(
+			new AssemblySet(new TokenAssembly("a b")));
+		assertEquals("size", 1, out.size());
+		assertEquals("consumed", 1, out.get(0).elementsConsumed());
+		assertNull(new Sequence(p, new Empty()).completeMatch(
+			new TokenAssembly("a b")));
+	}
+
+	@Test
+	public void testLaterBranchesNotTried() {
+		final int[] tried = new int[1];
+		Parser second = new Word() {
+			public AssemblySet match(AssemblySet in) {
+				tried[0]++;
+				return super.match(in);
+			}
+		};
+		Parser p = new OrderedChoice(new Word(), second);
+		assertNotNull(p.completeMatch(new TokenAssembly("a")));
+		assertEquals("tried", 0, tried[0]);
+	}
+
+	@Test
+	public void testEachAssemblyChoosesItsOwnBranch() {
+		Parser p = new Sequence(
+			new Repetition(new Word()),
+			new OrderedChoice(new Word(), new Num()));
+		Assembly a = p.completeMatch(new TokenAssembly("a b 1"));
+		assertNotNull(a);
+		assertEquals("stack", "[a, b, 1.0]", a.getStack().toString());
+	}
+}
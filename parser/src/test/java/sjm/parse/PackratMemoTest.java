@@ -0,0 +1,131 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import sjm.examples.coffee.CoffeeParser;
+import sjm.parse.tokens.Literal;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.Token;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Tokenizer;
+import sjm.parse.tokens.Word;
+
+public class PackratMemoTest {
+
+	/**
+	 * list = item ',' list | item ';' list | item;
+	 *
+	 * Every branch starts with the same item, so without a memo
+	 * the item is matched once per branch at every position.
+	 */
+	private Parser getList() {
+		Parser item = new Alternation(new Word(), new Num());
+		Alternation list = new Alternation();
+		list.add(new Sequence(item, new Symbol(',').discard(), list));
+		list.add(new Sequence(item, new Symbol(';').discard(), list));
+		list.add(item);
+		return list;
+	}
+
+	@Test
+	public void testSameResultAsWithoutMemo() {
+		Parser p = getList();
+		String s = "a, b; 1, c; d, 2, e";
+
+		Assembly plain = p.completeMatch(new TokenAssembly(s));
+
+		PackratMemo memo = new PackratMemo();
+		Assembly in = new TokenAssembly(s);
+		in.setMemo(memo);
+		Assembly memoized = p.completeMatch(in);
+
+		assertNotNull(memoized);
+		assertEquals("stack", plain.getStack(), memoized.getStack());
+		assertTrue("hits", memo.hits() > 0);
+	}
+
+	@Test
+	public void testAssemblersStillApply() {
+		String s = "Roman Spur (Revit), Italian, Guatemala, 7.95";
+		Parser p = CoffeeParser.start();
+
+		Tokenizer t = CoffeeParser.tokenizer();
+		t.setString(s);
+		Assembly plain = p.bestMatch(new TokenAssembly(t));
+
+		t.setString(s);
+		Assembly in = new TokenAssembly(t);
+		in.setMemo(new PackratMemo());
+		Assembly memoized = p.bestMatch(in);
+
+		assertEquals("coffee", plain.getTarget(), memoized.getTarget());
+	}
+
+	/**
+	 * expr = expr '+' term | expr '-' term | term;
+	 * term = Num;
+	 */
+	private Parser getExpression() {
+		Assembler fold = new Assembler() {
+			public void workOn(Assembly a) {
+				double right = ((Double) a.pop()).doubleValue();
+				String op = ((Token) a.pop()).sval();
+				double left = ((Double) a.pop()).doubleValue();
+				a.push(new Double(op.equals("+") ? left + right : left - right));
+			}
+		};
+		Parser term = new Num().setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push(new Double(((Token) a.pop()).nval()));
+			}
+		});
+		Alternation expr = new Alternation();
+		expr.add(new Sequence(expr, new Symbol('+'), term).setAssembler(fold));
+		expr.add(new Sequence(expr, new Symbol('-'), term).setAssembler(fold));
+		expr.add(term);
+		return expr;
+	}
+
+	@Test
+	public void testDirectLeftRecursion() {
+		Assembly in = new TokenAssembly("10 - 4 - 3 + 1");
+		in.setMemo(new PackratMemo());
+		Assembly a = getExpression().completeMatch(in);
+		assertNotNull(a);
+		// left associative: ((10 - 4) - 3) + 1
+		assertEquals("value", new Double(4), a.pop());
+
+		in = new TokenAssembly("10 - 4 - 3 + 1");
+		in.setMemo(new PackratMemo());
+		in.setDeferred(true);
+		assertEquals("deferred", new Double(4),
+			getExpression().completeMatch(in).pop());
+	}
+
+	@Test
+	public void testIndirectLeftRecursion() {
+		// a = b 'x' | 'y';  b = a 'z';
+		Alternation a = new Alternation();
+		Sequence b = new Sequence();
+		a.add(new Sequence(b, new Literal("x")));
+		a.add(new Literal("y"));
+		b.add(a);
+		b.add(new Literal("z"));
+
+		Assembly in = new TokenAssembly("y z x z x");
+		in.setMemo(new PackratMemo());
+		Assembly out = a.completeMatch(in);
+		assertNotNull(out);
+		assertEquals("stack", "[y, z, x, z, x]", out.getStack().toString());
+
+		in = new TokenAssembly("y z x z");
+		in.setMemo(new PackratMemo());
+		assertNull(a.completeMatch(in));
+	}
+}
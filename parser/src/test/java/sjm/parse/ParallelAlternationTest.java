@@ -0,0 +1,113 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.Literal;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class ParallelAlternationTest {
+
+	private Parser getBranch(String keyword, final Set threads) {
+		Parser p = new Sequence(new Literal(keyword),
+			new Repetition(new Alternation(new Word(), new Num())));
+		p.setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				threads.add(Thread.currentThread());
+			}
+		});
+		return p;
+	}
+
+	@Test
+	public void testSameResultsAsAlternation() {
+		Set threads = Collections.synchronizedSet(new HashSet());
+		Alternation plain = new Alternation();
+		ParallelAlternation parallel = new ParallelAlternation();
+		parallel.setThreshold(0);
+		String[] keywords = {"a", "b", "a", "c"};
+		for (int i = 0; i < keywords.length; i++) {
+			plain.add(getBranch(keywords[i], threads));
+			parallel.add(getBranch(keywords[i], threads));
+		}
+		String s = "a 1 b 2 c 3";
+		AssemblySet expected = plain.matchAndAssemble(
+			new AssemblySet(new TokenAssembly(s)));
+		threads.clear();
+		AssemblySet actual = parallel.matchAndAssemble(
+			new AssemblySet(new TokenAssembly(s)));
+
+		assertEquals("size", expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue("order " + i, expected.get(i).sameState(actual.get(i)));
+		}
+		assertTrue("pool", !threads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void testBelowThresholdStaysOnCaller() {
+		Set threads = Collections.synchronizedSet(new HashSet());
+		ParallelAlternation p = new ParallelAlternation(
+			getBranch("a", threads), getBranch("b", threads));
+		p.completeMatch(new TokenAssembly("a 1 2"));
+		assertEquals("threads", Collections.singleton(Thread.currentThread()),
+			threads);
+	}
+
+	@Test
+	public void testNested() {
+		Set threads = Collections.synchronizedSet(new HashSet());
+		ParallelAlternation inner = new ParallelAlternation(
+			getBranch("a", threads), getBranch("b", threads));
+		inner.setThreshold(0);
+		ParallelAlternation outer = new ParallelAlternation(inner, new Word());
+		outer.setThreshold(0);
+		Parser p = new Repetition(outer);
+		assertEquals("consumed", 6,
+			p.bestMatch(new TokenAssembly("a 1 b 2 a 3")).elementsConsumed());
+	}
+
+	@Test
+	public void testReach() {
+		Set threads = Collections.synchronizedSet(new HashSet());
+		ParallelAlternation p = new ParallelAlternation(
+			getBranch("a", threads), getBranch("b", threads), 
+			new Sequence(new Literal("a"), new Num(), new Num(), 
+				new Symbol(';')));
+		p.setThreshold(0);
+		// only the last subparser gets past "2"
+		Assembly a = new TokenAssembly("a 1 2 ; y");
+		a.setReachTracking(true);
+		AssemblySet out = p.matchAndAssemble(new AssemblySet(a));
+		assertEquals("reach", 4, a.furthestReached());
+		for (int i = 0; i < out.size(); i++) {
+			assertEquals("result " + i, 4, out.get(i).furthestReached());
+		}
+	}
+
+	@Test
+	public void testArenaStaysOnCaller() {
+		Set threads = Collections.synchronizedSet(new HashSet());
+		Sequence named = new Sequence("num");
+		named.add(new Num());
+		ParallelAlternation p = new ParallelAlternation(
+			new Sequence(new Literal("a"), named), getBranch("a", threads));
+		p.setThreshold(0);
+		Assembly a = new TokenAssembly("a 1");
+		SyntaxArena arena = new SyntaxArena();
+		a.setArena(arena);
+		Assembly b = new Sequence("top").add(p).completeMatch(a);
+		assertEquals("threads", Collections.singleton(Thread.currentThread()),
+			threads);
+		assertEquals("(top(a num(Num)))", arena.tree(b).toString());
+	}
+}
@@ -0,0 +1,146 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Vector;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.Literal;
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class ParserOptimizerTest {
+
+	/**
+	 * Pushes how many elements are on the stack.
+	 */
+	private static class Count extends Assembler {
+		public void workOn(Assembly a) {
+			a.push(new Integer(a.getStack().size()));
+		}
+	}
+
+	@Test
+	public void testFlattenAndInline() {
+		Word w = new Word();
+		Num n = new Num();
+		Parser p = new Sequence(
+			new Sequence(new Sequence(w)), 
+			new Alternation(new Alternation(n, new Literal("x")), new Empty()));
+		Parser q = ParserOptimizer.optimize(p);
+
+		assertSame("start", p, q);
+		Vector subs = ((Sequence) q).getSubparsers();
+		assertEquals("sequence", 2, subs.size());
+		assertSame("inlined", w, subs.elementAt(0));
+		assertEquals("alternation", 3, 
+			((Alternation) subs.elementAt(1)).getSubparsers().size());
+	}
+
+	@Test
+	public void testWrapperStart() {
+		Word w = new Word();
+		assertSame("start", w, ParserOptimizer.optimize(new Sequence(new Alternation(w))));
+	}
+
+	@Test
+	public void testNamesAndAssemblersKept() {
+		Sequence named = new Sequence("named");
+		named.add(new Word());
+		Sequence assembled = new Sequence(new Num());
+		assembled.setAssembler(new Count());
+		Sequence p = new Sequence(named, assembled);
+		ParserOptimizer.optimize(p);
+
+		assertSame("named", named, p.getSubparsers().elementAt(0));
+		assertSame("assembled", assembled, p.getSubparsers().elementAt(1));
+	}
+
+	@Test
+	public void testDeadBranchDropped() {
+		Alternation dead = new Alternation();
+		Alternation p = new Alternation(new Word(), new Sequence(new Num(), dead));
+		ParserOptimizer.optimize(p);
+		assertEquals("branches", 1, p.getSubparsers().size());
+	}
+
+	@Test
+	public void testRuns() {
+		Sequence p = new Sequence();
+		p.add(new Symbol('(').discard());
+		p.add(new Word().setAssembler(new Count()));
+		p.add(new Symbol(')').discard());
+		p.add(new Repetition(new Num()));
+		p.add(new Symbol(';'));
+		Assembly plain = p.completeMatch(new TokenAssembly("(a) 1 2;"));
+
+		Parser q = ParserOptimizer.optimize(p);
+		Vector subs = ((Sequence) q).getSubparsers();
+		assertEquals("subparsers", 3, subs.size());
+		assertTrue("run", subs.elementAt(0) instanceof TerminalRun);
+
+		Assembly a = q.completeMatch(new TokenAssembly("(a) 1 2;"));
+		assertNotNull(a);
+		assertEquals("stack", plain.getStack(), a.getStack());
+		assertEquals("stack", "[a, 1, 1.0, 2.0, ;]", a.getStack().toString());
+		assertNull("mismatch", q.completeMatch(new TokenAssembly("(a] 1;")));
+	}
+
+	@Test
+	public void testWholeSequenceRun() {
+		Sequence s = new Sequence("pair");
+		s.add(new Word());
+		s.add(new Num());
+		s.setAssembler(new Count());
+		Parser q = ParserOptimizer.optimize(new Repetition(s));
+
+		Parser run = ((Repetition) q).getSubparser();
+		assertTrue("run", run instanceof TerminalRun);
+		assertEquals("name", "pair", run.getName());
+		Assembly a = q.completeMatch(new TokenAssembly("a 1 b 2"));
+		assertEquals("stack", "[a, 1.0, 2, b, 2.0, 5]", a.getStack().toString());
+	}
+
+	@Test
+	public void testNamedTerminalsKeptOutOfRuns() {
+		Word w = new Word();
+		w.name = "w";
+		Sequence s = new Sequence("s");
+		s.add(w);
+		s.add(new Symbol('='));
+		s.add(new Num());
+		Parser q = ParserOptimizer.optimize(s);
+		assertSame("start", s, q);
+		assertSame("named", w, s.getSubparsers().elementAt(0));
+		assertTrue("run", s.getSubparsers().elementAt(1) instanceof TerminalRun);
+
+		Assembly a = new TokenAssembly("x = 1");
+		SyntaxArena arena = new SyntaxArena();
+		a.setArena(arena);
+		Assembly b = q.completeMatch(a);
+		assertNotNull(b);
+		assertEquals("tree", "(s(w(w) = Num))", arena.tree(b).toString());
+	}
+
+	@Test
+	public void testRecursiveGrammar() {
+		Alternation list = new Alternation();
+		Sequence cons = new Sequence(new Sequence(new Word()), list);
+		list.add(new Alternation(cons));
+		list.add(new Empty());
+		Parser p = new Sequence(list, new Symbol('.'));
+		Parser q = ParserOptimizer.optimize(p);
+
+		Assembly a = q.completeMatch(new TokenAssembly("a b c ."));
+		assertNotNull(a);
+		assertEquals("stack", "[a, b, c, .]", a.getStack().toString());
+		assertEquals("branches", 2, list.getSubparsers().size());
+	}
+}
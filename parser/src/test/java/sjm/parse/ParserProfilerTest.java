@@ -0,0 +1,111 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Test;
+
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+
+public class ParserProfilerTest {
+
+	private static Parser sums() {
+		Sequence term = new Sequence("term");
+		term.add(new Num());
+		Sequence plusTerm = new Sequence("plusTerm");
+		plusTerm.add(new Symbol('+').discard());
+		plusTerm.add(term);
+		Sequence expr = new Sequence("expr");
+		expr.add(term);
+		expr.add(new Repetition(plusTerm));
+		return expr;
+	}
+
+	private static ParserStats find(ParserProfiler profiler, String name) {
+		Vector v = profiler.snapshot();
+		for (int i = 0; i < v.size(); i++) {
+			ParserStats s = (ParserStats) v.elementAt(i);
+			if (s.getName().equals(name)) {
+				return s;
+			}
+		}
+		return null;
+	}
+
+	@After
+	public void tearDown() {
+		ParserProfiler.setEnabled(false);
+	}
+
+	@Test
+	public void testInstrumentsGraph() {
+		ParserProfiler profiler = new ParserProfiler(sums());
+		assertEquals(6, profiler.snapshot().size());
+		assertNotNull(find(profiler, "term"));
+		assertNotNull(find(profiler, "Repetition"));
+		assertNotNull(find(profiler, "Num"));
+	}
+
+	@Test
+	public void testOffRecordsNothing() {
+		Parser p = sums();
+		ParserProfiler profiler = new ParserProfiler(p);
+		p.completeMatch(new TokenAssembly("1 + 2 + 3"));
+		assertEquals(0, find(profiler, "expr").getCalls());
+		assertEquals(0, find(profiler, "term").getCalls());
+	}
+
+	@Test
+	public void testRecords() {
+		Parser p = sums();
+		ParserProfiler profiler = new ParserProfiler(p);
+		ParserProfiler.setEnabled(true);
+		assertNotNull(p.completeMatch(new TokenAssembly("1 + 2 + 3")));
+
+		ParserStats expr = find(profiler, "expr");
+		assertEquals(1, expr.getCalls());
+		assertEquals(1, expr.getAssembliesIn());
+		assertEquals(3, expr.getAssembliesOut());
+		assertTrue(expr.getClones() > 0);
+		assertTrue(expr.getNanos() > 0);
+
+		ParserStats plusTerm = find(profiler, "plusTerm");
+		assertEquals(3, plusTerm.getCalls());
+		assertEquals(2, plusTerm.getAssembliesOut());
+		assertEquals(3, find(profiler, "term").getCalls());
+		assertTrue(expr.getClones() >= plusTerm.getClones());
+		assertTrue(profiler.toString().startsWith("expr: 1 calls"));
+
+		profiler.reset();
+		assertEquals(0, find(profiler, "expr").getCalls());
+	}
+
+	@Test
+	public void testSnapshotIsCopy() {
+		Parser p = sums();
+		ParserProfiler profiler = new ParserProfiler(p);
+		ParserProfiler.setEnabled(true);
+		Vector before = profiler.snapshot();
+		p.completeMatch(new TokenAssembly("1"));
+		assertEquals(0, ((ParserStats) before.elementAt(0)).getCalls());
+		assertEquals(1, find(profiler, "expr").getCalls());
+	}
+
+	@Test
+	public void testUninstrument() {
+		Parser p = sums();
+		ParserProfiler profiler = new ParserProfiler(p);
+		profiler.uninstrument();
+		assertEquals(0, profiler.snapshot().size());
+		ParserProfiler.setEnabled(true);
+		ParserProfiler again = new ParserProfiler(p);
+		p.completeMatch(new TokenAssembly("1 + 2"));
+		assertEquals(1, find(again, "expr").getCalls());
+	}
+}
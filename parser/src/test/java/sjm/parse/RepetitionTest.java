@@ -0,0 +1,113 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+import sjm.parse.tokens.Word;
+
+public class RepetitionTest {
+
+	@Test
+	public void testBoundedCounts() {
+		Parser p = new BoundedRepetition(new Word(), 1, 2);
+		AssemblySet out = p.matchAndAssemble(
+			new AssemblySet(new TokenAssembly("a a a")));
+		assertEquals("size", 2, out.size());
+		assertEquals("first", 1, out.get(0).elementsConsumed());
+		assertEquals("second", 2, out.get(1).elementsConsumed());
+	}
+
+	@Test
+	public void testBoundedMinimum() {
+		Parser p = new Sequence(
+			new BoundedRepetition(new Word(), 2, BoundedRepetition.UNBOUNDED),
+			new Symbol(';'));
+		assertNull(p.completeMatch(new TokenAssembly("a;")));
+		assertNotNull(p.completeMatch(new TokenAssembly("a a a a;")));
+	}
+
+	@Test
+	public void testBoundedRandomExpansion() {
+		Parser p = new BoundedRepetition(new Word(), 2, 3);
+		for (int i = 0; i < 20; i++) {
+			String s = p.randomInput(3, " ");
+			int n = s.trim().split(" ").length;
+			assertTrue("count " + n, n >= 2 && n <= 3);
+			assertNotNull(p.completeMatch(new TokenAssembly(s)));
+		}
+	}
+
+	@Test
+	public void testBoundedVisitedAsRepetition() {
+		final int[] visits = new int[1];
+		ParserVisitor pv = new ParserVisitor() {
+			public void visitAlternation(Alternation a, java.util.Vector v) {
+			}
+			public void visitEmpty(Empty e, java.util.Vector v) {
+			}
+			public void visitRepetition(Repetition r, java.util.Vector v) {
+				visits[0]++;
+			}
+			public void visitSequence(Sequence s, java.util.Vector v) {
+			}
+			public void visitTerminal(Terminal t, java.util.Vector v) {
+			}
+		};
+		new BoundedRepetition(new Word(), 0, 1).accept(pv);
+		assertEquals("visits", 1, visits[0]);
+		assertEquals("string", "Word{0,1}", 
+			new BoundedRepetition(new Word(), 0, 1).toString());
+	}
+
+	@Test
+	public void testPossessiveKeepsLongest() {
+		Parser p = new PossessiveRepetition(new Word());
+		AssemblySet out = p.matchAndAssemble(
+			new AssemblySet(new TokenAssembly("a a a 1")));
+		assertEquals("size", 1, out.size());
+		assertEquals("consumed", 3, out.get(0).elementsConsumed());
+		assertEquals("stack", "[a, a, a]", out.get(0).getStack().toString());
+	}
+
+	@Test
+	public void testPossessiveMatchesNothing() {
+		Parser p = new PossessiveRepetition(new Word());
+		AssemblySet out = p.matchAndAssemble(
+			new AssemblySet(new TokenAssembly("1 a")));
+		assertEquals("size", 1, out.size());
+		assertEquals("consumed", 0, out.get(0).elementsConsumed());
+	}
+
+	@Test
+	public void testPossessiveAssemblers() {
+		Repetition r = new PossessiveRepetition(new Num());
+		r.setPreAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push("(");
+			}
+		});
+		r.setAssembler(new Assembler() {
+			public void workOn(Assembly a) {
+				a.push(")");
+			}
+		});
+		Parser p = new Sequence(r, new Symbol(';'));
+		Assembly a = p.completeMatch(new TokenAssembly("1 2 3;"));
+		assertNotNull(a);
+		assertEquals("stack", "[(, 1.0, 2.0, 3.0, ), ;]", a.getStack().toString());
+	}
+
+	@Test
+	public void testPossessiveDoesNotGiveBack() {
+		// a*+ a can never match, since the repetition takes every a
+		Parser p = new Sequence(new PossessiveRepetition(new Word()), new Word());
+		assertNull(p.completeMatch(new TokenAssembly("a a a")));
+	}
+}
@@ -0,0 +1,116 @@
+package sjm.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import sjm.parse.tokens.Num;
+import sjm.parse.tokens.Symbol;
+import sjm.parse.tokens.TokenAssembly;
+
+public class SyntaxArenaTest {
+
+	private static Parser sums() {
+		Sequence term = new Sequence("term");
+		term.add(new Num());
+		Sequence plusTerm = new Sequence();
+		plusTerm.add(new Symbol('+'));
+		plusTerm.add(term);
+		Sequence expr = new Sequence("expr");
+		expr.add(term);
+		expr.add(new Repetition(plusTerm));
+		return expr;
+	}
+
+	private static Parser leftRecursive() {
+		Alternation expr = new Alternation("expr");
+		Sequence term = new Sequence("term");
+		term.add(new Num());
+		Sequence plus = new Sequence();
+		plus.add(expr);
+		plus.add(new Symbol('+').discard());
+		plus.add(term);
+		expr.add(plus);
+		expr.add(term);
+		return expr;
+	}
+
+	private static SyntaxNode tree(Parser p, String s, boolean memo) {
+		Assembly a = new TokenAssembly(s);
+		SyntaxArena arena = new SyntaxArena();
+		a.setArena(arena);
+		if (memo) {
+			a.setMemo(new PackratMemo());
+		}
+		Assembly b = p.completeMatch(a);
+		assertNotNull(b);
+		return arena.tree(b);
+	}
+
+	@Test
+	public void testTree() {
+		SyntaxNode root = tree(sums(), "1 + 2 + 3", false);
+		assertEquals("(expr(term(Num) + term(Num) + term(Num)))", root.toString());
+		assertNull(root.getParser());
+		assertEquals(1, root.getChildCount());
+		SyntaxNode expr = root.getChild(0);
+		assertEquals("expr", expr.getParser().getName());
+		assertEquals(0, expr.getStart());
+		assertEquals(5, expr.getEnd());
+		assertEquals(5, expr.getChildCount());
+		SyntaxNode plus = expr.getChild(3);
+		assertEquals(3, plus.getStart());
+		assertEquals(4, plus.getEnd());
+		assertEquals(0, plus.getChildCount());
+		SyntaxNode term = expr.getChild(4);
+		assertEquals("term", term.getParser().getName());
+		assertEquals(1, term.getChildCount());
+		assertEquals(4, term.getChild(0).getStart());
+	}
+
+	@Test
+	public void testMemoizedTreeMatches() {
+		assertEquals(
+			tree(sums(), "1 + 2 + 3 + 4", false).toString(), 
+			tree(sums(), "1 + 2 + 3 + 4", true).toString());
+	}
+
+	@Test
+	public void testLeftRecursion() {
+		SyntaxNode root = tree(leftRecursive(), "1 + 2 + 3", true);
+		SyntaxNode expr = root.getChild(0);
+		assertEquals(3, expr.getChildCount());
+		SyntaxNode inner = expr.getChild(0);
+		assertEquals("expr", inner.getParser().getName());
+		assertEquals(0, inner.getStart());
+		assertEquals(3, inner.getEnd());
+		assertEquals("expr", inner.getChild(0).getParser().getName());
+		assertEquals(1, inner.getChild(0).getEnd());
+		assertEquals("term", expr.getChild(2).getParser().getName());
+		assertEquals(4, expr.getChild(2).getStart());
+	}
+
+	@Test
+	public void testDeferred() {
+		Assembly a = new TokenAssembly("1 + 2");
+		SyntaxArena arena = new SyntaxArena();
+		a.setArena(arena);
+		a.setDeferred(true);
+		Assembly b = sums().completeMatch(a);
+		assertEquals(tree(sums(), "1 + 2", false).toString(), arena.tree(b).toString());
+	}
+
+	@Test
+	public void testClear() {
+		Assembly a = new TokenAssembly("1 + 2");
+		SyntaxArena arena = new SyntaxArena();
+		a.setArena(arena);
+		sums().completeMatch(a);
+		assertTrue(arena.size() > 0);
+		arena.clear();
+		assertEquals(0, arena.size());
+	}
+}
@@ -0,0 +1,131 @@
+package sjm.parse.tokens;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import sjm.parse.Assembly;
+import sjm.parse.Parser;
+import sjm.parse.Repetition;
+import sjm.parse.Sequence;
+
+public class IncrementalParserTest {
+
+	private static Parser statements() {
+		Sequence s = new Sequence();
+		s.add(new Word());
+		s.add(new Symbol('=').discard());
+		s.add(new Num());
+		s.add(new Symbol(';').discard());
+		return new Repetition(s);
+	}
+
+	private static String program(int n) {
+		StringBuffer buf = new StringBuffer();
+		for (int i = 0; i < n; i++) {
+			buf.append("v" + i + " = " + i + ";\n");
+		}
+		return buf.toString();
+	}
+
+	private static void assertFresh(IncrementalParser parse) {
+		TokenString fresh = new TokenString(parse.getText());
+		assertEquals("tokens", fresh.toString(), parse.getTokens().toString());
+		Assembly a = statements().completeMatch(new TokenAssembly(fresh));
+		Assembly b = parse.completeMatch();
+		if (a == null) {
+			assertNull("no match", b);
+		} else {
+			assertNotNull("match", b);
+			assertEquals("stack", a.getStack().toString(), b.getStack().toString());
+		}
+	}
+
+	@Test
+	public void testEditValue() {
+		String s = program(5);
+		IncrementalParser parse = new IncrementalParser(statements(), s);
+		assertNotNull(parse.completeMatch());
+		int at = s.indexOf("= 3") + 2;
+		parse.edit(at, at + 1, "42");
+		assertFresh(parse);
+		assertTrue(parse.getText().indexOf("v3 = 42;") >= 0);
+	}
+
+	@Test
+	public void testReuse() {
+		String s = program(50);
+		IncrementalParser parse = new IncrementalParser(statements(), s);
+		parse.completeMatch();
+		int first = parse.getMemo().misses();
+
+		int at = s.indexOf("v40 =") + 3;
+		parse.edit(at, at, "   ");
+		assertFresh(parse);
+		int second = parse.getMemo().misses() - first;
+		assertTrue("rematched " + second + " of " + first, second * 10 < first);
+	}
+
+	@Test
+	public void testMergeAndSplitTokens() {
+		IncrementalParser parse = new IncrementalParser(statements(), "ab = 1;cd = 2;");
+		parse.edit(2, 3, "");
+		assertEquals("ab = 1.0 ; cd = 2.0 ;", parse.getTokens().toString());
+		parse.edit(1, 1, " ");
+		assertEquals("a b = 1.0 ; cd = 2.0 ;", parse.getTokens().toString());
+		assertNull(parse.completeMatch());
+		parse.edit(1, 2, "");
+		parse.edit(6, 6, "x");
+		assertEquals("ab = 1.0 ; xcd = 2.0 ;", parse.getTokens().toString());
+		assertFresh(parse);
+	}
+
+	@Test
+	public void testEditEnds() {
+		IncrementalParser parse = new IncrementalParser(statements(), "a = 1;");
+		parse.completeMatch();
+		parse.edit(6, 6, " b = 2");
+		assertNull(parse.completeMatch());
+		parse.edit(12, 12, ";");
+		assertFresh(parse);
+		parse.edit(0, 7, "");
+		assertEquals("b = 2.0 ;", parse.getTokens().toString());
+		assertFresh(parse);
+		parse.edit(0, 6, "");
+		assertEquals("", parse.getTokens().toString());
+		assertFresh(parse);
+	}
+
+	@Test
+	public void testManyEdits() {
+		String s = program(20);
+		IncrementalParser parse = new IncrementalParser(statements(), s);
+		Random random = new Random(7);
+		String[] pieces = {"", " ", "x", "9", ";", "=", "\n", "a1 = 2;"};
+		for (int i = 0; i < 200; i++) {
+			int length = parse.getText().length();
+			int start = random.nextInt(length + 1);
+			int end = Math.min(length, start + random.nextInt(4));
+			parse.edit(start, end, pieces[random.nextInt(pieces.length)]);
+			assertFresh(parse);
+		}
+	}
+
+	@Test
+	public void testEditTokens() {
+		IncrementalParser parse = new IncrementalParser(
+			statements(), new TokenString("a = 1; b = 2;"));
+		assertNotNull(parse.completeMatch());
+		parse.editTokens(6, 7, new Token[] {new Token(3.0)});
+		Assembly a = parse.completeMatch();
+		assertNotNull(a);
+		assertEquals("[a, 1.0, b, 3.0]", a.getStack().toString());
+		parse.editTokens(4, 4, new Token[] {new Token("c")});
+		assertNull(parse.completeMatch());
+	}
+}
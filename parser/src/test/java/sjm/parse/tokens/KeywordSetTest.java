@@ -0,0 +1,125 @@
+package sjm.parse.tokens;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Vector;
+
+import org.junit.Test;
+
+import sjm.parse.Alternation;
+import sjm.parse.Assembler;
+import sjm.parse.Assembly;
+import sjm.parse.Parser;
+import sjm.parse.ParserOptimizer;
+import sjm.parse.Repetition;
+import sjm.parse.Sequence;
+
+public class KeywordSetTest {
+
+	/**
+	 * Pushes a fixed object.
+	 */
+	private static class Mark extends Assembler {
+		private Object mark;
+
+		Mark(Object mark) {
+			this.mark = mark;
+		}
+
+		public void workOn(Assembly a) {
+			a.push(mark);
+		}
+	}
+
+	@Test
+	public void testMatch() {
+		KeywordSet k = new KeywordSet();
+		k.add("select").add("insert");
+		Literal update = new Literal("update");
+		update.setAssembler(new Mark("u"));
+		k.add(update);
+		k.add((Literal) new Literal("delete").discard());
+
+		assertEquals("[insert]", stack(k, "insert"));
+		assertEquals("[update, u]", stack(k, "update"));
+		assertEquals("[]", stack(k, "delete"));
+		assertNull("case", k.completeMatch(new TokenAssembly("SELECT")));
+		assertNull("other", k.completeMatch(new TokenAssembly("from")));
+		assertEquals("lookahead", 4, k.lookaheadKeys().length);
+	}
+
+	@Test
+	public void testCaseless() {
+		KeywordSet k = new KeywordSet(true);
+		k.add("Select").add("FROM");
+		assertEquals("[SELECT, from]", 
+			stack(new Repetition(k), "SELECT from"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicate() {
+		new KeywordSet(true).add("from").add("FROM");
+	}
+
+	@Test
+	public void testOptimizerUnites() {
+		String[] words = {"select", "insert", "update", "delete", "create", "drop"};
+		Alternation verbs = new Alternation();
+		for (int i = 0; i < words.length; i++) {
+			verbs.add(new CaselessLiteral(words[i]).setAssembler(new Mark(new Integer(i))));
+		}
+		verbs.add(new Word());
+		Sequence p = new Sequence(verbs, new Symbol(';'));
+		String text = "DROP ; ";
+		Vector plain = p.matchAndAssemble(
+			Parser.elementClone(vector(new TokenAssembly(text))));
+
+		Parser q = ParserOptimizer.optimize(p);
+		Vector branches = verbs.getSubparsers();
+		assertEquals("branches", 2, branches.size());
+		assertTrue("keywords", branches.elementAt(0) instanceof KeywordSet);
+		Vector out = q.matchAndAssemble(vector(new TokenAssembly(text)));
+		assertEquals("results", plain.toString(), out.toString());
+		assertEquals("stacks", "[DROP, 5, ;]", 
+			((Assembly) out.elementAt(0)).getStack().toString());
+	}
+
+	@Test
+	public void testWholeAlternation() {
+		Alternation a = new Alternation("verb");
+		a.add(new Literal("go"));
+		a.add(new Literal("stop"));
+		a.setAssembler(new Mark("v"));
+		Parser q = ParserOptimizer.optimize(a);
+		assertTrue("keywords", q instanceof KeywordSet);
+		assertEquals("name", "verb", q.getName());
+		assertEquals("[stop, v]", stack(q, "stop"));
+	}
+
+	@Test
+	public void testNotUnited() {
+		Literal go = new Literal("go");
+		Alternation twice = new Alternation(go, new Literal("go"));
+		assertSame("duplicates", twice, ParserOptimizer.optimize(twice));
+		Alternation mixed = new Alternation(go, new CaselessLiteral("stop"));
+		assertSame("mixed", mixed, ParserOptimizer.optimize(mixed));
+		assertEquals("two", 2, twice.matchAndAssemble(
+			vector(new TokenAssembly("go"))).size());
+	}
+
+	private static String stack(Parser p, String s) {
+		Assembly a = p.completeMatch(new TokenAssembly(s));
+		assertNotNull(s, a);
+		return a.getStack().toString();
+	}
+
+	private static Vector vector(Assembly a) {
+		Vector v = new Vector();
+		v.addElement(a);
+		return v;
+	}
+}
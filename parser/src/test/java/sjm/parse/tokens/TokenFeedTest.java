@@ -0,0 +1,142 @@
+package sjm.parse.tokens;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import sjm.examples.coffee.CoffeeParser;
+import sjm.parse.Alternation;
+import sjm.parse.Assembly;
+import sjm.parse.Parser;
+import sjm.parse.PushParser;
+import sjm.parse.Repetition;
+import sjm.parse.Sequence;
+
+public class TokenFeedTest {
+
+	private static Parser list() {
+		Sequence item = new Sequence(new Word(), new Symbol(',').discard());
+		return new Sequence(new Repetition(item), new Word(), new Symbol(';').discard());
+	}
+
+	@Test
+	public void testPushTokens() {
+		TokenFeed feed = new TokenFeed(list());
+		PushParser parse = feed.getParse();
+		feed.push(new Token("a"));
+		feed.push(new Token(','));
+		assertEquals("none yet", 0, parse.getResults().size());
+		feed.push(new Token("b"));
+		assertFalse("waiting", parse.isDead());
+		feed.push(new Token(';'));
+		assertEquals("result", 1, parse.getResults().size());
+		assertEquals("stack", "[a, b]", parse.bestMatch().getStack().toString());
+		assertNull("not ended", parse.completeMatch());
+		assertTrue("finished", parse.isDead());
+
+		parse.end();
+		assertNotNull("complete", parse.completeMatch());
+	}
+
+	@Test
+	public void testDiesEarly() {
+		TokenFeed feed = new TokenFeed(list());
+		feed.push(new Token("a"));
+		feed.push(new Token(','));
+		feed.push(new Token("b"));
+		feed.push(new Token(','));
+		assertFalse("alive", feed.getParse().isDead());
+		feed.push(new Token(3));
+		assertTrue("dead", feed.getParse().isDead());
+		assertEquals("results", 0, feed.getParse().getResults().size());
+	}
+
+	@Test
+	public void testChunks() {
+		TokenFeed feed = new TokenFeed(list());
+		feed.push("alpha, be");
+		assertEquals("tokens", 2, feed.getBuffer().length());
+		feed.push("ta, gam");
+		assertEquals("tokens", 4, feed.getBuffer().length());
+		feed.push("ma;");
+		assertEquals("tokens", 4, feed.getBuffer().length());
+		feed.end();
+		assertEquals("tokens", 6, feed.getBuffer().length());
+		Assembly a = feed.getParse().completeMatch();
+		assertNotNull(a);
+		assertEquals("stack", "[alpha, beta, gamma]", a.getStack().toString());
+	}
+
+	@Test
+	public void testCommentsAcrossChunks() {
+		TokenFeed feed = new TokenFeed(new Repetition(new Word()));
+		feed.push("x /* a b");
+		assertEquals("tokens", 1, feed.getBuffer().length());
+		feed.push(" c */ y");
+		feed.end();
+		assertEquals("tokens", 2, feed.getBuffer().length());
+
+		feed = new TokenFeed(new Repetition(new Word()));
+		feed.push("x // a b");
+		feed.push(" c\ny z");
+		assertEquals("tokens", 2, feed.getBuffer().length());
+		feed.end();
+		assertNotNull(feed.getParse().completeMatch());
+	}
+
+	@Test
+	public void testSameAsWholeInput() {
+		String s = "Launch Mi (Brazil), french, Kenya, 6.95";
+		Parser p = CoffeeParser.start();
+		Tokenizer t = CoffeeParser.tokenizer();
+		t.setString(s);
+		Assembly whole = p.completeMatch(new TokenAssembly(t));
+
+		TokenFeed feed = new TokenFeed(p);
+		t.setString(s);
+		for (Token tok = next(t); tok != Token.EOF; tok = next(t)) {
+			feed.push(tok);
+		}
+		feed.end();
+		Assembly pushed = feed.getParse().completeMatch();
+		assertNotNull(pushed);
+		assertEquals("target", whole.getTarget().toString(), pushed.getTarget().toString());
+	}
+
+	@Test
+	public void testDelegatedParserWaitsForEnd() {
+		Alternation a = new Alternation(new Word(), new Num()) {
+		};
+		TokenFeed feed = new TokenFeed(new Sequence(a, new Word()));
+		feed.push("x y ");
+		assertEquals("waits", 0, feed.getParse().getResults().size());
+		feed.end();
+		assertNotNull("complete", feed.getParse().completeMatch());
+	}
+
+	@Test
+	public void testLeftRecursiveGrammar() {
+		Alternation expr = new Alternation();
+		expr.add(new Sequence(expr, new Symbol('+'), new Num()));
+		expr.add(new Num());
+		TokenFeed feed = new TokenFeed(expr);
+		feed.push("1 + 2 ");
+		feed.push("+ 3");
+		feed.end();
+		Assembly a = feed.getParse().completeMatch();
+		assertNotNull("complete", a);
+		assertEquals("[1.0, +, 2.0, +, 3.0]", a.getStack().toString());
+	}
+
+	private static Token next(Tokenizer t) {
+		try {
+			return t.nextToken();
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
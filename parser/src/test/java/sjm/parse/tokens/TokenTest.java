@@ -0,0 +1,17 @@
+package sjm.parse.tokens;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TokenTest {
+
+	@Test
+	public void testSignedZeroes() {
+		Token zero = new Token(0.0);
+		Token negative = new Token(-0.0);
+		assertTrue("equal", zero.equals(negative));
+		assertEquals("hash", zero.hashCode(), negative.hashCode());
+	}
+}
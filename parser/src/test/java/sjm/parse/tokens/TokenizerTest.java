@@ -1,8 +1,10 @@
 package sjm.parse.tokens;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
+import java.util.Vector;
 
 import org.junit.Test;
 
@@ -16,4 +18,72 @@ public class TokenizerTest {
 		assertEquals("nextoken()", "EOF", t.nextToken().toString());
 	}
 	
+	@Test
+	public void testConfigurationCopiesTable() throws IOException {
+		Tokenizer t = new Tokenizer();
+		TokenizerConfiguration c = t.configuration();
+		t.setCharacterState('#', '#', t.wordState());
+		Tokenizer shared = c.newTokenizer("#a");
+		assertEquals("configuration", "#", shared.nextToken().toString());
+		
+		shared.setCharacterState('#', '#', shared.wordState());
+		assertEquals("copy on write", c.symbolState, c.state('#'));
+		shared.setString("#a");
+		assertEquals("own table", "#a", shared.nextToken().toString());
+		assertNull("outside", c.state(256));
+	}
+	
+	@Test
+	public void testConfigurationCopiesStates() throws IOException {
+		Tokenizer t = new Tokenizer();
+		TokenizerConfiguration c = t.configuration();
+		t.symbolState().add("=>");
+		Tokenizer changed = c.newTokenizer("a => b");
+		changed.symbolState().add("=>");
+		assertEquals("own states", 3, tokens(changed).split("\n").length);
+		
+		Tokenizer other = c.newTokenizer("a => b");
+		assertEquals("configuration", 4, tokens(other).split("\n").length);
+	}
+	
+	@Test
+	public void testSharedConfiguration() throws Exception {
+		final TokenizerConfiguration c = new Tokenizer().configuration();
+		final StringBuffer text = new StringBuffer();
+		for (int i = 0; i < 200; i++) {
+			text.append("word" + i + " -" + i + ".5 <= ");
+		}
+		final String expected = tokens(new Tokenizer(text.toString()));
+		final Vector failures = new Vector();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						for (int j = 0; j < 20; j++) {
+							String s = tokens(c.newTokenizer(text.toString()));
+							if (!s.equals(expected)) {
+								failures.addElement(s);
+							}
+						}
+					} catch (IOException e) {
+						failures.addElement(e);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		assertEquals("failures", 0, failures.size());
+	}
+	
+	private static String tokens(Tokenizer t) throws IOException {
+		StringBuffer buf = new StringBuffer();
+		for (Token tok = t.nextToken(); !tok.equals(Token.EOF); tok = t.nextToken()) {
+			buf.append(tok.ttype()).append(' ').append(tok).append('\n');
+		}
+		return buf.toString();
+	}
 }
@@ -0,0 +1,79 @@
+package sjm.utensil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PersistentStackTest {
+
+	@Test
+	public void testPushAndPopShare() {
+		PersistentStack a = PersistentStack.EMPTY.push("a");
+		PersistentStack ab = a.push("b");
+		PersistentStack ac = a.push("c");
+		assertSame("tail", a, ab.pop());
+		assertSame("shared", ab.pop(), ac.pop());
+		assertEquals("size", 2, ab.size());
+		assertEquals("unchanged", 1, a.size());
+		assertEquals("top", "a", a.peek());
+		assertEquals("stack", "[a, b]", ab.toString());
+		assertEquals("stack", "[a, c]", ac.toString());
+		assertTrue("empty", ab.pop().pop().isEmpty());
+	}
+
+	@Test
+	public void testEquals() {
+		PersistentStack a = PersistentStack.EMPTY.push("a");
+		PersistentStack shared1 = a.push("b");
+		PersistentStack shared2 = a.push(new String("b"));
+		PersistentStack unshared = PersistentStack.EMPTY.push("a").push("b");
+		assertTrue("shared tail", shared1.equals(shared2));
+		assertTrue("unshared tail", shared1.equals(unshared));
+		assertTrue("unshared tail", unshared.equals(shared2));
+		assertFalse("top", shared1.equals(a.push("c")));
+		assertFalse("below", shared1.equals(
+			PersistentStack.EMPTY.push("x").push("b")));
+		assertFalse("size", shared1.equals(a));
+		assertFalse("empty", PersistentStack.EMPTY.equals(a));
+		assertTrue("nulls", PersistentStack.EMPTY.push(null).equals(
+			PersistentStack.EMPTY.push(null)));
+	}
+
+	@Test
+	public void testHashCode() {
+		PersistentStack ab = PersistentStack.EMPTY.push("a").push("b");
+		PersistentStack other = PersistentStack.EMPTY.push("a").push("b");
+		assertEquals("equal stacks", ab.hashCode(), other.hashCode());
+		assertEquals("shared tail", ab.hashCode(),
+			ab.pop().push(new String("b")).hashCode());
+		assertEquals("nulls", PersistentStack.EMPTY.push(null).hashCode(),
+			PersistentStack.EMPTY.push(null).hashCode());
+	}
+
+	@Test
+	public void testHashCodeIsLazy() {
+		final int[] calls = new int[1];
+		Object counted = new Object() {
+			public int hashCode() {
+				calls[0]++;
+				return 7;
+			}
+		};
+		PersistentStack s = PersistentStack.EMPTY.push(counted).push("a");
+		assertEquals("push", 0, calls[0]);
+		int h = s.hashCode();
+		assertEquals("first hash", 1, calls[0]);
+		assertEquals("cached", h, s.hashCode());
+		assertEquals("pop cached", 7, s.pop().hashCode());
+		assertEquals("no more calls", 1, calls[0]);
+
+		PersistentStack deep = PersistentStack.EMPTY;
+		for (int i = 0; i < 100000; i++) {
+			deep = deep.push("x");
+		}
+		assertEquals("deep", deep.pop().hashCode() * 31 + "x".hashCode(), deep.hashCode());
+	}
+}